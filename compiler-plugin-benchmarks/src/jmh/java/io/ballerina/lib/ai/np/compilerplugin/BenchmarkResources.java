@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import io.ballerina.projects.BuildOptions;
+import io.ballerina.projects.Project;
+import io.ballerina.projects.ProjectEnvironmentBuilder;
+import io.ballerina.projects.directory.BuildProject;
+import io.ballerina.projects.environment.Environment;
+import io.ballerina.projects.environment.EnvironmentBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static io.ballerina.projects.util.ProjectConstants.BALLERINA_HOME;
+
+/**
+ * Access to the projects and recorded responses of the compiler plugin tests, which the benchmarks reuse.
+ *
+ * @since 0.4.3
+ */
+final class BenchmarkResources {
+
+    static final String RESOURCES = "ai.np.benchmark.resources";
+    static final String SERVER_RESOURCES = "server-resources";
+
+    private BenchmarkResources() {
+    }
+
+    static Path getResource(String... path) {
+        String resources = System.getProperty(RESOURCES);
+        if (resources == null) {
+            throw new RuntimeException(String.format("The '%s' system property needs to be set", RESOURCES));
+        }
+        return Path.of(resources, path);
+    }
+
+    static byte[] readServerResource(String directory, String file) throws IOException {
+        return Files.readAllBytes(getResource(SERVER_RESOURCES, directory, file));
+    }
+
+    /**
+     * Copies a project to a temporary directory, so that the files written while compiling it do not affect
+     * subsequent runs.
+     *
+     * @param projectPath path of the project
+     * @return path of the copy
+     */
+    static Path copyProject(Path projectPath) throws IOException {
+        Path copy = Files.createTempDirectory("np-benchmark-");
+        try (Stream<Path> paths = Files.walk(projectPath)) {
+            for (Path path : paths.toList()) {
+                Path target = copy.resolve(projectPath.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(path, target);
+                }
+            }
+        }
+        return copy;
+    }
+
+    static Project loadProject(Path projectPath) {
+        Environment environment = EnvironmentBuilder.getBuilder()
+                .setBallerinaHome(Path.of(System.getProperty(BALLERINA_HOME))).build();
+        ProjectEnvironmentBuilder projectEnvironmentBuilder = ProjectEnvironmentBuilder.getBuilder(environment);
+        BuildOptions buildOptions = BuildOptions.builder().setExperimental(true).build();
+        return BuildProject.load(projectEnvironmentBuilder, projectPath, buildOptions);
+    }
+
+    static void delete(Path path) throws IOException {
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path file : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import io.ballerina.projects.DiagnosticResult;
+import io.ballerina.projects.Project;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.ballerina.lib.ai.np.compilerplugin.CopilotStandInServer.CODE_PATH;
+import static io.ballerina.lib.ai.np.compilerplugin.CopilotStandInServer.REPAIR_PATH;
+
+/**
+ * Benchmarks a full run of the code generation and code modification plugins on the test projects, against a
+ * stand-in for the code generation service that replays the recorded responses.
+ * <p>
+ * Each invocation compiles a fresh copy of the project, so that code generated and written to the project in an
+ * invocation is not reused by the next.
+ *
+ * @since 0.4.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CodeGenerationBenchmark {
+
+    @Param
+    public Scenario scenario;
+
+    @Param({"0", "100"})
+    public long latencyMillis;
+
+    private CopilotStandInServer server;
+    private Path projectPath;
+    private Project project;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        this.server = new CopilotStandInServer(this.scenario.readResponses(), this.latencyMillis);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        this.server.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void loadProject() throws IOException {
+        this.projectPath = BenchmarkResources.copyProject(this.scenario.projectPath());
+        this.project = BenchmarkResources.loadProject(this.projectPath);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteProject() throws IOException {
+        BenchmarkResources.delete(this.projectPath);
+    }
+
+    @Benchmark
+    public DiagnosticResult runCodeGenAndModifyPlugins() {
+        return this.project.currentPackage().runCodeGenAndModifyPlugins();
+    }
+
+    /**
+     * A test project, and the recorded responses to the requests sent when generating code for it.
+     */
+    public enum Scenario {
+        // A function whose generated code needs one repair.
+        CODE_FUNCTION("code-function-projects", "code-function", "code-function-projects/code-function",
+                Map.of(CODE_PATH, "code_function_code_response.txt",
+                        REPAIR_PATH, "code_function_repair_response.json")),
+        // Const natural expressions, whose generated code is valid.
+        CONST_NATURAL_EXPRESSIONS("const-natural-expressions", "const-natural-expressions-project",
+                "const-natural-expressions", Map.of(CODE_PATH, "const_natural_expr_response.txt"));
+
+        private final String projectDirectory;
+        private final String project;
+        private final String responseDirectory;
+        private final Map<String, String> responseFiles;
+
+        Scenario(String projectDirectory, String project, String responseDirectory,
+                 Map<String, String> responseFiles) {
+            this.projectDirectory = projectDirectory;
+            this.project = project;
+            this.responseDirectory = responseDirectory;
+            this.responseFiles = responseFiles;
+        }
+
+        Path projectPath() {
+            return BenchmarkResources.getResource(this.projectDirectory, this.project);
+        }
+
+        Map<String, byte[]> readResponses() throws IOException {
+            Map<String, byte[]> responses = new HashMap<>();
+            for (Map.Entry<String, String> responseFile : this.responseFiles.entrySet()) {
+                responses.put(responseFile.getKey(),
+                        BenchmarkResources.readServerResource(this.responseDirectory, responseFile.getValue()));
+            }
+            return responses;
+        }
+    }
+}
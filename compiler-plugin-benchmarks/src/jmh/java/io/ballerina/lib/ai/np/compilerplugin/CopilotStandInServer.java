@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An in-process stand-in for the code generation service, which replays a recorded response for each path after a
+ * fixed latency.
+ *
+ * @since 0.4.3
+ */
+final class CopilotStandInServer implements AutoCloseable {
+
+    static final String CODE_PATH = "/code";
+    static final String REPAIR_PATH = "/code/repair";
+
+    private static final String BAL_CODEGEN_URL = "BAL_CODEGEN_URL";
+    private static final String BAL_CODEGEN_TOKEN = "BAL_CODEGEN_TOKEN";
+    private static final String BAL_CODEGEN_DISABLE_CACHE = "BAL_CODEGEN_DISABLE_CACHE";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String EVENT_STREAM = "text/event-stream";
+    private static final String APPLICATION_JSON = "application/json";
+
+    private final Map<String, byte[]> responses;
+    private final long latencyMillis;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "np-copilot-stand-in");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts the server, and points the compiler plugin at it.
+     *
+     * @param responses     response body to replay for each path
+     * @param latencyMillis time to wait before responding to a request
+     */
+    CopilotStandInServer(Map<String, byte[]> responses, long latencyMillis) throws IOException {
+        this.responses = responses;
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(this.executor);
+        this.server.start();
+
+        System.setProperty(BAL_CODEGEN_URL, "http://localhost:" + this.server.getAddress().getPort());
+        System.setProperty(BAL_CODEGEN_TOKEN, "not-a-real-token");
+        // Code served from the cache would not exercise the code generation pipeline.
+        System.setProperty(BAL_CODEGEN_DISABLE_CACHE, "true");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream requestBody = exchange.getRequestBody()) {
+            requestBody.transferTo(OutputStream.nullOutputStream());
+
+            String path = exchange.getRequestURI().getPath();
+            byte[] response = this.responses.get(path);
+            if (response == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            if (this.latencyMillis > 0) {
+                Thread.sleep(this.latencyMillis);
+            }
+
+            exchange.getResponseHeaders().set(CONTENT_TYPE, CODE_PATH.equals(path) ? EVENT_STREAM : APPLICATION_JSON);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+        System.clearProperty(BAL_CODEGEN_URL);
+        System.clearProperty(BAL_CODEGEN_TOKEN);
+        System.clearProperty(BAL_CODEGEN_DISABLE_CACHE);
+    }
+}
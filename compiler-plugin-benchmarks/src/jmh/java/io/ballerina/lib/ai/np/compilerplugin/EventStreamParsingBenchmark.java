@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.GeneratedCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks extracting the generated code from the recorded event streams of code generation responses.
+ *
+ * @since 0.4.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventStreamParsingBenchmark {
+
+    private static final String TARGET = "benchmark";
+
+    @Param({
+            "code-function-projects/code-function/code_function_code_response.txt",
+            "code-function-projects/code-function-with-validation-failure/" +
+                    "code_function_with_validation_code_response.txt",
+            "const-natural-expressions/const_natural_expr_response.txt"
+    })
+    public String response;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        int index = this.response.lastIndexOf('/');
+        this.body = BenchmarkResources.readServerResource(this.response.substring(0, index),
+                this.response.substring(index + 1));
+    }
+
+    @Benchmark
+    public GeneratedCode extractGeneratedFunctionCode() throws IOException {
+        return CodeGenerationUtils.extractGeneratedFunctionCode(new ByteArrayInputStream(this.body), TARGET);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks constructing the payload of a code generation request from the source files recorded for the
+ * {@code code-function} test project, and serializing it into the request body.
+ *
+ * @since 0.4.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadConstructionBenchmark {
+
+    private static final String BAL_CODEGEN_COMPRESS_REQUESTS = "BAL_CODEGEN_COMPRESS_REQUESTS";
+    private static final String FUNCTION_NAME = "sortEmployees";
+    private static final String GENERATED_FUNCTION_NAME = "sortEmployeesNPGenerated";
+    private static final String PROMPT = """
+            Give me a new array with the employees sorted by
+                                    1. salary in descending order and then
+                                    2. name in ascending order""";
+
+    @Param({"false", "true"})
+    public boolean compressRequests;
+
+    private JsonArray sourceFiles;
+    private JsonObject payload;
+    private CopilotClient client;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] request = BenchmarkResources.readServerResource("code-function-projects/code-function",
+                "code_function_code_request.json");
+        this.sourceFiles = JsonParser.parseString(new String(request, StandardCharsets.UTF_8)).getAsJsonObject()
+                .getAsJsonArray("sourceFiles");
+        this.payload = constructPayload();
+
+        System.setProperty(BAL_CODEGEN_COMPRESS_REQUESTS, Boolean.toString(this.compressRequests));
+        this.client = new CopilotClient(CodeGenerationOptions.fromEnvironment());
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.clearProperty(BAL_CODEGEN_COMPRESS_REQUESTS);
+    }
+
+    @Benchmark
+    public JsonObject constructPayload() {
+        String prompt = CodeGenerationUtils.generatePrompt(FUNCTION_NAME, GENERATED_FUNCTION_NAME, PROMPT);
+        return CodeGenerationUtils.constructCodeGenerationPayload(prompt, this.sourceFiles);
+    }
+
+    @Benchmark
+    public long serializePayload() throws IOException {
+        return this.client.createBodyPublisher(this.payload).contentLength();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import io.ballerina.compiler.api.SemanticModel;
+import io.ballerina.compiler.api.symbols.RecordFieldSymbol;
+import io.ballerina.compiler.api.symbols.RecordTypeSymbol;
+import io.ballerina.compiler.api.symbols.TypeDefinitionSymbol;
+import io.ballerina.compiler.api.symbols.TypeReferenceTypeSymbol;
+import io.ballerina.compiler.api.symbols.TypeSymbol;
+import io.ballerina.lib.ai.np.compilerplugin.RuntimePromptAsCodeCodeModificationTask.ModifierData;
+import io.ballerina.lib.ai.np.compilerplugin.RuntimePromptAsCodeCodeModificationTask.TypeId;
+import io.ballerina.lib.ai.np.compilerplugin.SyntheticModuleGenerator.Shape;
+import io.ballerina.openapi.service.mapper.type.TypeMapper;
+import io.ballerina.openapi.service.mapper.type.TypeMapperImpl;
+import io.ballerina.projects.Document;
+import io.ballerina.projects.Module;
+import io.ballerina.projects.Package;
+import io.ballerina.projects.PackageCompilation;
+import io.ballerina.tools.text.TextDocument;
+import io.swagger.v3.oas.models.media.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks generating the JSON schemas of the expected types of natural expressions, and injecting them into the
+ * type definitions as {@code @ai:JsonSchema} annotations, on generated packages with many types.
+ * <p>
+ * The fields of the {@value SyntheticModuleGenerator#ROOTS_TYPE} record of the generated package stand in for the
+ * expected types. Run with the GC profiler, which the build enables by default, to also report the allocation rate.
+ *
+ * @since 0.4.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SchemaGenerationBenchmark {
+
+    @Param
+    public Shape shape;
+
+    @Param({"100", "2000"})
+    public int typeCount;
+
+    private Path packagePath;
+    private ModuleAnalysisContext analysisContext;
+    private Document document;
+    private RecordTypeSymbol rootsType;
+    private List<TypeReferenceTypeSymbol> rootTypes;
+    private TypeSymbol anydataType;
+    private Map<TypeId, Map<String, Object>> typeSchemas;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.packagePath = SyntheticModuleGenerator.generatePackage(this.shape, this.typeCount);
+        Package currentPackage = BenchmarkResources.loadProject(this.packagePath).currentPackage();
+        PackageCompilation compilation = currentPackage.getCompilation();
+        if (compilation.diagnosticResult().hasErrors()) {
+            throw new RuntimeException("Generated package has errors: " + compilation.diagnosticResult().errors());
+        }
+
+        Module module = currentPackage.getDefaultModule();
+        this.document = module.document(module.documentIds().iterator().next());
+        this.analysisContext = new ModuleAnalysisContext(compilation, this.document);
+
+        SemanticModel semanticModel = compilation.getSemanticModel(module.moduleId());
+        this.anydataType = semanticModel.types().ANYDATA;
+        this.rootsType = semanticModel.moduleSymbols().stream()
+                .filter(symbol -> symbol instanceof TypeDefinitionSymbol)
+                .map(symbol -> (TypeDefinitionSymbol) symbol)
+                .filter(symbol -> symbol.getName().orElseThrow().equals(SyntheticModuleGenerator.ROOTS_TYPE))
+                .map(symbol -> (RecordTypeSymbol) symbol.typeDescriptor())
+                .findFirst().orElseThrow();
+        this.rootTypes = new ArrayList<>();
+        for (RecordFieldSymbol field : this.rootsType.fieldDescriptors().values()) {
+            this.rootTypes.add((TypeReferenceTypeSymbol) field.typeDescriptor());
+        }
+        this.typeSchemas = generateSchemas();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkResources.delete(this.packagePath);
+    }
+
+    /**
+     * Generates the JSON schemas of the expected types, as for the natural expressions of a module.
+     */
+    @Benchmark
+    public Map<TypeId, Map<String, Object>> generateSchemas() {
+        JsonSchemaGenerator schemaGenerator =
+                new JsonSchemaGenerator(() -> new TypeMapperImpl(this.analysisContext));
+        Map<TypeId, Map<String, Object>> typeSchemas = new HashMap<>();
+        RuntimePromptAsCodeCodeModificationTask.populateTypeSchema(this.rootsType, schemaGenerator, typeSchemas,
+                this.anydataType, new CodeGenerationReport());
+        return typeSchemas;
+    }
+
+    /**
+     * Maps the expected types to schemas with the type mapper and converts them to JSON schemas, as for the types
+     * whose JSON schemas are not generated directly.
+     */
+    @Benchmark
+    public void generateSchemasWithTypeMapper(Blackhole blackhole) {
+        TypeMapper typeMapper = new TypeMapperImpl(this.analysisContext);
+        for (TypeReferenceTypeSymbol rootType : this.rootTypes) {
+            blackhole.consume(CompactJsonWriter.write(
+                    RuntimePromptAsCodeCodeModificationTask.getJsonSchema(typeMapper.getSchema(rootType))));
+        }
+    }
+
+    /**
+     * Converts schemas mapped by the type mapper to JSON schemas, without mapping the types.
+     */
+    @Benchmark
+    public void serializeSchemas(MappedSchemas mappedSchemas, Blackhole blackhole) {
+        for (Schema<?> schema : mappedSchemas.schemas) {
+            blackhole.consume(CompactJsonWriter.write(RuntimePromptAsCodeCodeModificationTask.getJsonSchema(schema)));
+        }
+    }
+
+    /**
+     * Adds the generated JSON schemas to the type definitions as annotations.
+     */
+    @Benchmark
+    public TextDocument injectAnnotations() {
+        ModifierData modifierData = new ModifierData();
+        modifierData.typeSchemas = this.typeSchemas;
+        return RuntimePromptAsCodeCodeModificationTask.modifyDocument(this.document, modifierData,
+                Optional.empty());
+    }
+
+    /**
+     * Schemas freshly mapped for each invocation, since converting a schema to a JSON schema modifies it.
+     */
+    @State(Scope.Thread)
+    public static class MappedSchemas {
+
+        private final List<Schema<?>> schemas = new ArrayList<>();
+
+        @Setup(Level.Invocation)
+        public void mapTypes(SchemaGenerationBenchmark benchmark) {
+            TypeMapper typeMapper = new TypeMapperImpl(benchmark.analysisContext);
+            this.schemas.clear();
+            for (TypeReferenceTypeSymbol rootType : benchmark.rootTypes) {
+                this.schemas.add(typeMapper.getSchema(rootType));
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates Ballerina packages with a large number of record types of a given shape, for benchmarking JSON schema
+ * generation.
+ * <p>
+ * Besides the generated types, the package has a {@value #ROOTS_TYPE} record with a field of each type that is
+ * not referred to from another generated type, which stands in for the expected types of natural expressions.
+ *
+ * @since 0.4.3
+ */
+final class SyntheticModuleGenerator {
+
+    static final String ROOTS_TYPE = "Roots";
+    static final String SOURCE_FILE = "types.bal";
+
+    private static final int WIDE_RECORD_FIELD_COUNT = 64;
+    private static final int NESTING_DEPTH = 25;
+    private static final int UNION_SIZE = 50;
+    private static final String[] FIELD_TYPES = {"string", "int", "decimal", "float", "boolean", "byte", "string?"};
+    private static final String BALLERINA_TOML = """
+            [package]
+            org = "benchmark"
+            name = "schemas"
+            version = "0.1.0"
+            """;
+
+    private SyntheticModuleGenerator() {
+    }
+
+    /**
+     * The shape of the generated types.
+     */
+    public enum Shape {
+        // Records with many fields of simple types.
+        WIDE_RECORDS,
+        // Chains of records, each with a field of the next record of the chain.
+        DEEP_NESTING,
+        // Unions of many small records.
+        LARGE_UNIONS,
+        // Chains of records, each with an array of the next record of the chain.
+        ARRAYS_OF_RECORDS,
+        // Many small, independent records.
+        MANY_TYPES
+    }
+
+    /**
+     * Generates a package in a temporary directory.
+     *
+     * @param shape     shape of the generated types
+     * @param typeCount number of types to generate
+     * @return path of the package
+     */
+    static Path generatePackage(Shape shape, int typeCount) throws IOException {
+        Path packagePath = Files.createTempDirectory("np-schema-benchmark-");
+        Files.writeString(packagePath.resolve("Ballerina.toml"), BALLERINA_TOML);
+        Files.writeString(packagePath.resolve(SOURCE_FILE), generateSource(shape, typeCount));
+        return packagePath;
+    }
+
+    static String generateSource(Shape shape, int typeCount) {
+        StringBuilder source = new StringBuilder();
+        List<String> roots = new ArrayList<>();
+        switch (shape) {
+            case WIDE_RECORDS -> {
+                for (int i = 0; i < typeCount; i++) {
+                    appendRecord(source, "Wide" + i, WIDE_RECORD_FIELD_COUNT, null);
+                    roots.add("Wide" + i);
+                }
+            }
+            case DEEP_NESTING, ARRAYS_OF_RECORDS -> {
+                String suffix = shape == Shape.DEEP_NESTING ? "" : "[]";
+                for (int i = 0; i < typeCount; i++) {
+                    String name = "Nested" + i;
+                    boolean isLast = (i + 1) % NESTING_DEPTH == 0 || i + 1 == typeCount;
+                    appendRecord(source, name, 3, isLast ? null : "Nested" + (i + 1) + suffix);
+                    if (i % NESTING_DEPTH == 0) {
+                        roots.add(name);
+                    }
+                }
+            }
+            case LARGE_UNIONS -> {
+                List<String> members = new ArrayList<>(UNION_SIZE);
+                for (int i = 0; i < typeCount; i++) {
+                    appendRecord(source, "Member" + i, 3, null);
+                    members.add("Member" + i);
+                    if (members.size() == UNION_SIZE || i + 1 == typeCount) {
+                        String name = "Union" + roots.size();
+                        source.append("type ").append(name).append(" ").append(String.join("|", members))
+                                .append(";\n\n");
+                        roots.add(name);
+                        members.clear();
+                    }
+                }
+            }
+            case MANY_TYPES -> {
+                for (int i = 0; i < typeCount; i++) {
+                    appendRecord(source, "Type" + i, 4, null);
+                    roots.add("Type" + i);
+                }
+            }
+        }
+
+        source.append("type ").append(ROOTS_TYPE).append(" record {|\n");
+        for (int i = 0; i < roots.size(); i++) {
+            source.append("    ").append(roots.get(i)).append(" root").append(i).append(";\n");
+        }
+        source.append("|};\n");
+        return source.toString();
+    }
+
+    private static void appendRecord(StringBuilder source, String name, int fieldCount, String nestedType) {
+        source.append("# A generated record.\ntype ").append(name).append(" record {|\n");
+        for (int i = 0; i < fieldCount; i++) {
+            source.append("    ").append(FIELD_TYPES[i % FIELD_TYPES.length]).append(" field").append(i)
+                    .append(";\n");
+        }
+        if (nestedType != null) {
+            source.append("    ").append(nestedType).append(" nested;\n");
+        }
+        source.append("|};\n\n");
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.JsonArray;
+import io.ballerina.projects.ModuleId;
+import io.ballerina.projects.Project;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks validating the code generated for the {@code code-function} test project, by creating the copy of
+ * the package in which generated code is compiled and compiling it, and by compiling it again in an existing copy.
+ *
+ * @since 0.4.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private static final String PROJECT = "code-function";
+    private static final String DOCUMENT_NAME = "functions_sortEmployeesNPGenerated.bal";
+
+    private Path projectPath;
+    private Project project;
+    private ModuleId moduleId;
+    private String packageOrgName;
+    private String code;
+    private ValidationWorkspace workspace;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path sourceProjectPath = BenchmarkResources.getResource("code-function-projects", PROJECT);
+        this.code = Files.readString(sourceProjectPath.resolve("expected").resolve("expected_function_source.bal"));
+        this.projectPath = BenchmarkResources.copyProject(sourceProjectPath);
+        this.project = BenchmarkResources.loadProject(this.projectPath);
+        this.moduleId = this.project.currentPackage().getDefaultModule().moduleId();
+        this.packageOrgName = this.project.currentPackage().packageOrg().value();
+        this.workspace = createWorkspace();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkResources.delete(this.projectPath);
+    }
+
+    @Benchmark
+    public JsonArray createWorkspaceAndValidate() {
+        return createWorkspace().validate(this.moduleId, DOCUMENT_NAME, this.code);
+    }
+
+    @Benchmark
+    public JsonArray validate() {
+        return this.workspace.validate(this.moduleId, DOCUMENT_NAME, this.code);
+    }
+
+    private ValidationWorkspace createWorkspace() {
+        return new ValidationWorkspace(this.project, document -> false, this.packageOrgName);
+    }
+}
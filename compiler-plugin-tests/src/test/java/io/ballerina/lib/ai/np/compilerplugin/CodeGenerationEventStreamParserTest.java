@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Tests parsing the event stream returned by the code generation endpoint.
+ *
+ * @since 0.4.3
+ */
+public class CodeGenerationEventStreamParserTest {
+
+    private static final String FUNCTIONS = "[\"ballerina/http\"]";
+
+    @Test
+    public void testCodeFenceSplitAcrossDeltas() throws IOException {
+        BufferedReader reader = createReader(
+                delta("Here is the code:\n`"),
+                delta("``ballerina\nfunction f() returns int {\n    return 1;\n}\n``"),
+                delta("`\nThe function returns one."),
+                functions(),
+                delta(" Unread."));
+        CodeGenerationEventStreamParser parser = new CodeGenerationEventStreamParser();
+
+        Assert.assertTrue(parser.parse(reader));
+        Assert.assertEquals(parser.content(), "Here is the code:\n```ballerina\nfunction f() returns int {\n" +
+                "    return 1;\n}\n```\nThe function returns one.");
+        Assert.assertEquals(parser.functions(), JsonParser.parseString(FUNCTIONS));
+        assertRemainingEvent(reader, " Unread.");
+    }
+
+    @Test
+    public void testFunctionsBeforeClosingCodeFence() throws IOException {
+        BufferedReader reader = createReader(
+                functions(),
+                delta("```ballerina\nfunction f() returns int {\n"),
+                delta("    return 1;\n}\n```"),
+                delta("\nThe function returns one."));
+        CodeGenerationEventStreamParser parser = new CodeGenerationEventStreamParser();
+
+        // Parsing stops right after the delta that closes the code block.
+        Assert.assertTrue(parser.parse(reader));
+        Assert.assertEquals(parser.content(), "```ballerina\nfunction f() returns int {\n    return 1;\n}\n```");
+        Assert.assertEquals(parser.functions(), JsonParser.parseString(FUNCTIONS));
+        assertRemainingEvent(reader, "\nThe function returns one.");
+    }
+
+    @Test
+    public void testFunctionsAfterClosingCodeFence() throws IOException {
+        BufferedReader reader = createReader(
+                delta("```ballerina\nfunction f() returns int {\n    return 1;\n}\n```"),
+                delta("\nThe function returns one."),
+                functions(),
+                delta(" Unread."));
+        CodeGenerationEventStreamParser parser = new CodeGenerationEventStreamParser();
+
+        // Parsing continues until the functions event is seen.
+        Assert.assertTrue(parser.parse(reader));
+        Assert.assertEquals(parser.content(),
+                "```ballerina\nfunction f() returns int {\n    return 1;\n}\n```\nThe function returns one.");
+        Assert.assertEquals(parser.functions(), JsonParser.parseString(FUNCTIONS));
+        assertRemainingEvent(reader, " Unread.");
+    }
+
+    @Test
+    public void testStreamEndingWithoutFunctions() throws IOException {
+        BufferedReader reader = createReader(
+                delta("```ballerina\nfunction f() returns int {\n    return 1;\n}\n```"),
+                delta("\nThe function returns one."));
+        CodeGenerationEventStreamParser parser = new CodeGenerationEventStreamParser();
+
+        Assert.assertFalse(parser.parse(reader));
+        Assert.assertEquals(parser.content(),
+                "```ballerina\nfunction f() returns int {\n    return 1;\n}\n```\nThe function returns one.");
+        Assert.assertNull(parser.functions());
+    }
+
+    @Test
+    public void testErrorMessage() throws IOException {
+        BufferedReader reader = createReader("{\"error_message\": \"Rate limit exceeded\"}\n");
+        CodeGenerationEventStreamParser parser = new CodeGenerationEventStreamParser();
+
+        RuntimeException exception = Assert.expectThrows(RuntimeException.class, () -> parser.parse(reader));
+        Assert.assertEquals(exception.getMessage(), "Rate limit exceeded");
+        Assert.assertEquals(parser.content(), "");
+    }
+
+    private static BufferedReader createReader(String... events) {
+        return new BufferedReader(new StringReader(String.join("", events)));
+    }
+
+    private static String delta(String text) {
+        JsonObject data = new JsonObject();
+        data.addProperty("text", text);
+        return "event: content_block_delta\ndata: " + data + "\n\n";
+    }
+
+    private static String functions() {
+        return "event: functions\ndata: " + FUNCTIONS + "\n\n";
+    }
+
+    private static void assertRemainingEvent(BufferedReader reader, String text) throws IOException {
+        String line = reader.readLine();
+        while (line != null && line.isBlank()) {
+            line = reader.readLine();
+        }
+        Assert.assertEquals(line, "event: content_block_delta");
+        Assert.assertEquals(JsonParser.parseString(reader.readLine().substring("data: ".length()))
+                .getAsJsonObject().get("text").getAsString(), text);
+    }
+}
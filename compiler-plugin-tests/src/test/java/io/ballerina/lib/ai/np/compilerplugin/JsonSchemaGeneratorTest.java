@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import io.ballerina.compiler.api.SemanticModel;
+import io.ballerina.compiler.api.symbols.RecordFieldSymbol;
+import io.ballerina.compiler.api.symbols.RecordTypeSymbol;
+import io.ballerina.compiler.api.symbols.TypeDefinitionSymbol;
+import io.ballerina.compiler.api.symbols.TypeReferenceTypeSymbol;
+import io.ballerina.openapi.service.mapper.type.TypeMapper;
+import io.ballerina.openapi.service.mapper.type.TypeMapperImpl;
+import io.ballerina.projects.BuildOptions;
+import io.ballerina.projects.Document;
+import io.ballerina.projects.Module;
+import io.ballerina.projects.PackageCompilation;
+import io.ballerina.projects.ProjectEnvironmentBuilder;
+import io.ballerina.projects.directory.BuildProject;
+import io.ballerina.projects.environment.Environment;
+import io.ballerina.projects.environment.EnvironmentBuilder;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.ballerina.projects.util.ProjectConstants.BALLERINA_HOME;
+
+/**
+ * Tests that the JSON schemas generated directly from type symbols are the same as the schemas generated with the
+ * type mapper, once both are serialized.
+ *
+ * @since 0.4.3
+ */
+public class JsonSchemaGeneratorTest {
+
+    private static final Path DISTRIBUTION_PATH = Paths.get("../", "target", "ballerina-runtime").toAbsolutePath();
+    private static final Path PROJECT_PATH =
+            Paths.get("src", "test", "resources", "json-schema-types").toAbsolutePath();
+
+    private ModuleAnalysisContext analysisContext;
+    private SemanticModel semanticModel;
+
+    @BeforeClass
+    void loadProject() {
+        System.setProperty(BALLERINA_HOME, DISTRIBUTION_PATH.toString());
+        Environment environment = EnvironmentBuilder.getBuilder().setBallerinaHome(DISTRIBUTION_PATH).build();
+        BuildProject project = BuildProject.load(ProjectEnvironmentBuilder.getBuilder(environment), PROJECT_PATH,
+                BuildOptions.builder().build());
+        PackageCompilation compilation = project.currentPackage().getCompilation();
+        Assert.assertFalse(compilation.diagnosticResult().hasErrors(),
+                compilation.diagnosticResult().errors().toString());
+
+        Module module = project.currentPackage().getDefaultModule();
+        Document document = module.document(module.documentIds().iterator().next());
+        this.analysisContext = new ModuleAnalysisContext(compilation, document);
+        this.semanticModel = compilation.getSemanticModel(module.moduleId());
+    }
+
+    @Test
+    public void testGeneratedSchemasMatchTypeMapperSchemas() {
+        // The type mapper is only used to compare the schemas with, none of the types fall back to it.
+        JsonSchemaGenerator schemaGenerator = new JsonSchemaGenerator(() -> {
+            throw new AssertionError("Unexpected fallback to the type mapper");
+        });
+        TypeMapper typeMapper = new TypeMapperImpl(this.analysisContext);
+        for (Map.Entry<String, TypeReferenceTypeSymbol> rootType : getRootTypes("Roots").entrySet()) {
+            Assert.assertEquals(CompactJsonWriter.write(schemaGenerator.generate(rootType.getValue())),
+                    getTypeMapperSchema(typeMapper, rootType.getValue()), rootType.getKey());
+        }
+    }
+
+    @Test
+    public void testSchemasOfUnsupportedTypesGeneratedWithTypeMapper() {
+        AtomicInteger typeMapperCount = new AtomicInteger();
+        JsonSchemaGenerator schemaGenerator = new JsonSchemaGenerator(() -> {
+            typeMapperCount.incrementAndGet();
+            return new TypeMapperImpl(this.analysisContext);
+        });
+        TypeMapper typeMapper = new TypeMapperImpl(this.analysisContext);
+        for (Map.Entry<String, TypeReferenceTypeSymbol> rootType : getRootTypes("FallbackRoots").entrySet()) {
+            Assert.assertEquals(CompactJsonWriter.write(schemaGenerator.generate(rootType.getValue())),
+                    getTypeMapperSchema(typeMapper, rootType.getValue()), rootType.getKey());
+        }
+        Assert.assertEquals(typeMapperCount.get(), 3);
+    }
+
+    private Map<String, TypeReferenceTypeSymbol> getRootTypes(String rootsTypeName) {
+        RecordTypeSymbol rootsType = this.semanticModel.moduleSymbols().stream()
+                .filter(symbol -> symbol instanceof TypeDefinitionSymbol)
+                .map(symbol -> (TypeDefinitionSymbol) symbol)
+                .filter(symbol -> symbol.getName().orElseThrow().equals(rootsTypeName))
+                .map(symbol -> (RecordTypeSymbol) symbol.typeDescriptor())
+                .findFirst().orElseThrow();
+        Map<String, TypeReferenceTypeSymbol> rootTypes = new LinkedHashMap<>();
+        for (Map.Entry<String, RecordFieldSymbol> field : rootsType.fieldDescriptors().entrySet()) {
+            rootTypes.put(field.getKey(), (TypeReferenceTypeSymbol) field.getValue().typeDescriptor());
+        }
+        return rootTypes;
+    }
+
+    private static String getTypeMapperSchema(TypeMapper typeMapper, TypeReferenceTypeSymbol typeReference) {
+        return CompactJsonWriter.write(
+                RuntimePromptAsCodeCodeModificationTask.getJsonSchema(typeMapper.getSchema(typeReference)));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import io.ballerina.compiler.syntax.tree.FunctionDefinitionNode;
+import io.ballerina.compiler.syntax.tree.ModuleMemberDeclarationNode;
+import io.ballerina.compiler.syntax.tree.ModulePartNode;
+import io.ballerina.projects.BuildOptions;
+import io.ballerina.projects.Document;
+import io.ballerina.projects.Module;
+import io.ballerina.projects.ProjectEnvironmentBuilder;
+import io.ballerina.projects.directory.BuildProject;
+import io.ballerina.projects.environment.Environment;
+import io.ballerina.projects.environment.EnvironmentBuilder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Tests selecting the parts of a module that are sent when generating code for a function.
+ *
+ * @since 0.4.3
+ */
+public class SourceContextSelectorTest {
+
+    private static final Path DISTRIBUTION_PATH = Paths.get("../", "target", "ballerina-runtime").toAbsolutePath();
+    private static final Path PROJECT_PATH = Paths.get("src", "test", "resources", "code-function-projects",
+            "code-function-with-pruned-context").toAbsolutePath();
+
+    @Test
+    public void testNoContextSelectedOnFailure() {
+        Environment environment = EnvironmentBuilder.getBuilder().setBallerinaHome(DISTRIBUTION_PATH).build();
+        Module module = BuildProject.load(ProjectEnvironmentBuilder.getBuilder(environment), PROJECT_PATH,
+                BuildOptions.builder().setExperimental(true).build()).currentPackage().getDefaultModule();
+        Document document = module.document(module.documentIds().iterator().next());
+
+        // References cannot be resolved without a semantic model, in which case the full module is used instead.
+        Assert.assertTrue(SourceContextSelector.selectSourceFiles(module, null, document,
+                getFunction(document, "getEmployeeNames"), Commons.getWords("Give me the names of the employees"))
+                .isEmpty());
+    }
+
+    private static FunctionDefinitionNode getFunction(Document document, String name) {
+        ModulePartNode modulePartNode = document.syntaxTree().rootNode();
+        for (ModuleMemberDeclarationNode member : modulePartNode.members()) {
+            if (member instanceof FunctionDefinitionNode functionDefinition &&
+                    name.equals(functionDefinition.functionName().text())) {
+                return functionDefinition;
+            }
+        }
+        throw new AssertionError("Function not found: " + name);
+    }
+}
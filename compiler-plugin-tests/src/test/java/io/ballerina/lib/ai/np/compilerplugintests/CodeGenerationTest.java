@@ -19,11 +19,16 @@
 package io.ballerina.lib.ai.np.compilerplugintests;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import io.ballerina.projects.BuildOptions;
+import io.ballerina.projects.Document;
+import io.ballerina.projects.DocumentId;
 import io.ballerina.projects.JBallerinaBackend;
 import io.ballerina.projects.JvmTarget;
+import io.ballerina.projects.Module;
+import io.ballerina.projects.Package;
 import io.ballerina.projects.Project;
 import io.ballerina.projects.ProjectEnvironmentBuilder;
 import io.ballerina.projects.directory.BuildProject;
@@ -31,8 +36,10 @@ import io.ballerina.projects.directory.SingleFileProject;
 import io.ballerina.projects.environment.Environment;
 import io.ballerina.projects.environment.EnvironmentBuilder;
 import io.ballerina.projects.util.ProjectUtils;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.QueueDispatcher;
 import okhttp3.mockwebserver.RecordedRequest;
 import org.testng.Assert;
 import org.testng.annotations.AfterSuite;
@@ -49,7 +56,17 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static io.ballerina.projects.util.ProjectConstants.BALLERINA_HOME;
 
@@ -67,6 +84,18 @@ public class CodeGenerationTest {
 
     private static final String CODE_PATH = "/code";
     private static final String REPAIR_PATH = "/code/repair";
+    private static final String BATCH_CODE_PATH = "/code/batch";
+    private static final String BATCH_REPAIR_PATH = "/code/repair/batch";
+    private static final String BAL_CODEGEN_SESSION = "BAL_CODEGEN_SESSION";
+    private static final String BAL_CODEGEN_BATCH = "BAL_CODEGEN_BATCH";
+    private static final String BAL_CODEGEN_LOCK = "BAL_CODEGEN_LOCK";
+    private static final String BAL_CODEGEN_MAX_REPAIR_ROUNDS = "BAL_CODEGEN_MAX_REPAIR_ROUNDS";
+
+    private static final String BAL_CODEGEN_REPAIR_TIME_BUDGET_SECONDS = "BAL_CODEGEN_REPAIR_TIME_BUDGET_SECONDS";
+    private static final String BAL_CODEGEN_CONTEXT = "BAL_CODEGEN_CONTEXT";
+    private static final String BAL_CODEGEN_DISABLE_CACHE = "BAL_CODEGEN_DISABLE_CACHE";
+    private static final String BAL_CODEGEN_CACHE_DIR = "BAL_CODEGEN_CACHE_DIR";
+    private static final String BAL_CODEGEN_CACHE_MAX_SIZE_MB = "BAL_CODEGEN_CACHE_MAX_SIZE_MB";
 
     private final MockWebServer server = new MockWebServer();
 
@@ -95,6 +124,52 @@ public class CodeGenerationTest {
                 "[1234,1456,1678,1890,1357,1579,1246,1468,1975,1753]");
     }
 
+    @Test
+    public void testRequestRetriedOnServiceUnavailable() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse("const-natural-expressions", "const_natural_expr_response.txt"))
+                .setResponseCode(200));
+
+        final Path projectPath = RESOURCE_DIRECTORY
+                .resolve("const-natural-expressions")
+                .resolve("const-natural-expressions-project");
+        final Project naturalExprProject = loadPackageProject(projectPath);
+        naturalExprProject.currentPackage().runCodeGenAndModifyPlugins();
+
+        // The same request is sent again once the service is available.
+        JsonObject expectedPayload =
+                getExpectedPayload("const-natural-expressions", "const_natural_expr_proj_request.json");
+        assertRequest(CODE_PATH, expectedPayload);
+        assertRequest(CODE_PATH, expectedPayload);
+
+        Assert.assertEquals(
+                buildAndRunExecutable(naturalExprProject, getJarPath(projectPath.toString(), naturalExprProject)),
+                "[1234,1456,1678,1890,1357,1579,1246,1468,1975,1753]");
+    }
+
+    @Test
+    public void testDuplicateConstNaturalExpressionsInProject() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse("const-natural-expressions", "const_natural_expr_response.txt"))
+                .setResponseCode(200));
+
+        final Path projectPath = RESOURCE_DIRECTORY
+                .resolve("const-natural-expressions")
+                .resolve("duplicate-const-natural-expressions-project");
+        final Project naturalExprProject = loadPackageProject(projectPath);
+        naturalExprProject.currentPackage().runCodeGenAndModifyPlugins();
+
+        // Code is generated once for identical expressions.
+        assertRequest(CODE_PATH, "const-natural-expressions", "duplicate_const_natural_expr_proj_request.json");
+        RecordedRequest recordedRequest = server.takeRequest(3L, TimeUnit.SECONDS);
+        Assert.assertNull(recordedRequest);
+
+        Assert.assertEquals(
+                buildAndRunExecutable(naturalExprProject, getJarPath(projectPath.toString(), naturalExprProject)),
+                "true");
+    }
+
     @Test
     public void testConstNaturalExpressionsInProjectWithNonConstExpressions() throws IOException, InterruptedException {
         String serviceResourceDirectoryName = "const-natural-expressions" + File.separator +
@@ -168,6 +243,15 @@ public class CodeGenerationTest {
         validateGeneratedCodeAndDeleteGeneratedDir(serviceResourceDirectoryName,
                 "sortEmployees_np_generated.bal");
 
+        JsonObject targetReport = getTargetReports(projectPath).get(0).getAsJsonObject();
+        Assert.assertEquals(targetReport.get("target").getAsString(), "function 'sortEmployees'");
+        Assert.assertEquals(targetReport.get("status").getAsString(), "succeeded");
+        Assert.assertEquals(targetReport.get("repairRounds").getAsInt(), 1);
+        JsonArray requests = targetReport.getAsJsonArray("requests");
+        Assert.assertEquals(requests.size(), 2);
+        Assert.assertEquals(requests.get(0).getAsJsonObject().get("path").getAsString(), CODE_PATH);
+        Assert.assertEquals(requests.get(1).getAsJsonObject().get("path").getAsString(), REPAIR_PATH);
+
         Assert.assertEquals(
                 buildAndRunExecutable(naturalExprProject, getJarPath(projectPath.toString(), naturalExprProject)),
                 "[{\"name\":\"David\",\"salary\":70000},{\"name\":\"Bob\",\"salary\":60000}," +
@@ -205,6 +289,653 @@ public class CodeGenerationTest {
                 "Total price: 110.54556");
     }
 
+    @Test
+    public void testCodeFunctionWithSession() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator +
+                "code-function-with-validation-failure";
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(serviceResourceDirectoryName,
+                        "code_function_with_validation_code_response.txt"))
+                .setResponseCode(200));
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(serviceResourceDirectoryName,
+                        "code_function_with_validation_repair_response.json"))
+                .setResponseCode(200)
+                .setHeader("Content-type", "application/json"));
+
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        System.setProperty(BAL_CODEGEN_SESSION, "true");
+        try {
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+        } finally {
+            System.clearProperty(BAL_CODEGEN_SESSION);
+        }
+
+        // Nothing has been sent in the session yet, so the content of all the source files is sent.
+        JsonObject codePayload = takeRequestPayload(CODE_PATH);
+        JsonElement sessionId = codePayload.remove("sessionId");
+        Assert.assertNotNull(sessionId);
+        Assert.assertEquals(codePayload,
+                getExpectedPayload(serviceResourceDirectoryName, "code_function_with_validation_code_request.json"));
+
+        // Source files sent with the code generation request are referred to by the digest of their content.
+        Set<String> sentContent = new HashSet<>();
+        for (JsonElement sourceFile : codePayload.getAsJsonArray("sourceFiles")) {
+            sentContent.add(sourceFile.getAsJsonObject().get("content").getAsString());
+        }
+
+        JsonObject expectedRepairPayload = getExpectedRepairPayload(serviceResourceDirectoryName,
+                "code_function_with_validation_repair_request.json");
+        JsonArray expectedSourceFiles = expectedRepairPayload.getAsJsonArray("sourceFiles");
+        for (int i = 0; i < expectedSourceFiles.size(); i++) {
+            JsonObject sourceFile = expectedSourceFiles.get(i).getAsJsonObject();
+            String content = sourceFile.get("content").getAsString();
+            if (sentContent.contains(content)) {
+                JsonObject sourceFileReference = new JsonObject();
+                sourceFileReference.add("filePath", sourceFile.get("filePath"));
+                sourceFileReference.addProperty("contentHash", getSha256Digest(content));
+                expectedSourceFiles.set(i, sourceFileReference);
+            }
+        }
+
+        JsonObject repairPayload = takeRequestPayload(REPAIR_PATH);
+        Assert.assertEquals(repairPayload.remove("sessionId"), sessionId);
+        Assert.assertEquals(repairPayload, expectedRepairPayload);
+
+        validateGeneratedCodeAndDeleteGeneratedDir(serviceResourceDirectoryName,
+                "calculateTotalPrice_np_generated.bal");
+    }
+
+    @Test
+    public void testCodeFunctionsInBatch() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator +
+                "code-functions-batch";
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(serviceResourceDirectoryName, "code_functions_batch_code_response.txt"))
+                .setResponseCode(200));
+
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        final Project naturalExprProject = loadPackageProject(projectPath);
+        System.setProperty(BAL_CODEGEN_BATCH, "true");
+        try {
+            naturalExprProject.currentPackage().runCodeGenAndModifyPlugins();
+        } finally {
+            System.clearProperty(BAL_CODEGEN_BATCH);
+        }
+
+        // Code for both functions is generated with a single request, and neither needs to be repaired.
+        assertRequest(BATCH_CODE_PATH, serviceResourceDirectoryName, "code_functions_batch_code_request.json");
+        RecordedRequest recordedRequest = server.takeRequest(3L, TimeUnit.SECONDS);
+        Assert.assertNull(recordedRequest);
+
+        deleteGeneratedDir(serviceResourceDirectoryName);
+
+        Assert.assertEquals(
+                buildAndRunExecutable(naturalExprProject, getJarPath(projectPath.toString(), naturalExprProject)),
+                "30 2");
+    }
+
+    @Test
+    public void testCodeFunctionsInBatchWithSession() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator +
+                "code-functions-batch-with-session";
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(serviceResourceDirectoryName, "batch_code_response.txt"))
+                .setResponseCode(200));
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(serviceResourceDirectoryName, "batch_repair_response.json"))
+                .setResponseCode(200)
+                .setHeader("Content-type", "application/json"));
+
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        // With pruned context, each function is sent with source files of its own rather than common ones.
+        System.setProperty(BAL_CODEGEN_BATCH, "true");
+        System.setProperty(BAL_CODEGEN_SESSION, "true");
+        System.setProperty(BAL_CODEGEN_CONTEXT, "pruned");
+        try {
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+        } finally {
+            System.clearProperty(BAL_CODEGEN_BATCH);
+            System.clearProperty(BAL_CODEGEN_SESSION);
+            System.clearProperty(BAL_CODEGEN_CONTEXT);
+        }
+
+        JsonObject codePayload = takeRequestPayload(BATCH_CODE_PATH);
+        JsonElement sessionId = codePayload.get("sessionId");
+        Assert.assertNotNull(sessionId);
+        Assert.assertTrue(codePayload.getAsJsonArray("sourceFiles").isEmpty());
+        List<String> sentContent = new ArrayList<>();
+        for (JsonElement target : codePayload.getAsJsonArray("targets")) {
+            JsonArray sourceFiles = target.getAsJsonObject().getAsJsonArray("sourceFiles");
+            Assert.assertEquals(sourceFiles.size(), 1);
+            sentContent.add(sourceFiles.get(0).getAsJsonObject().get("content").getAsString());
+        }
+
+        // The source files of each function sent with the code generation request are referred to by the digest of
+        // their content in the repair request, while the generated code is sent as is.
+        JsonObject repairPayload = takeRequestPayload(BATCH_REPAIR_PATH);
+        Assert.assertEquals(repairPayload.get("sessionId"), sessionId);
+        JsonArray repairs = repairPayload.getAsJsonArray("repairs");
+        Assert.assertEquals(repairs.size(), 2);
+        for (JsonElement repair : repairs) {
+            JsonObject repairObj = repair.getAsJsonObject();
+            JsonArray sourceFiles = repairObj.getAsJsonArray("sourceFiles");
+            Assert.assertEquals(sourceFiles.size(), 2);
+            JsonObject sourceFileReference = sourceFiles.get(0).getAsJsonObject();
+            Assert.assertEquals(sourceFileReference.get("filePath").getAsString(), "main.bal");
+            Assert.assertFalse(sourceFileReference.has("content"));
+            Assert.assertEquals(sourceFileReference.get("contentHash").getAsString(),
+                    getSha256Digest(sentContent.get(Integer.parseInt(repairObj.get("targetId").getAsString()))));
+            Assert.assertTrue(sourceFiles.get(1).getAsJsonObject().has("content"));
+        }
+        Assert.assertNull(server.takeRequest(3L, TimeUnit.SECONDS));
+
+        deleteGeneratedDir(serviceResourceDirectoryName);
+    }
+
+    @Test
+    public void testUnchangedGeneratedSourcesAreNotRewritten() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator +
+                "code-functions-batch";
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        Path generatedFilePath = projectPath.resolve("generated").resolve("sumOfSquares_np_generated.bal");
+        FileTime lastModifiedTime = FileTime.fromMillis(0);
+
+        System.setProperty(BAL_CODEGEN_BATCH, "true");
+        try {
+            for (int build = 0; build < 2; build++) {
+                server.enqueue(new MockResponse()
+                        .setBody(getCodeMockResponse(serviceResourceDirectoryName,
+                                "code_functions_batch_code_response.txt"))
+                        .setResponseCode(200));
+                loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+                // The files generated in the first build are sent with the second request.
+                takeRequestPayload(BATCH_CODE_PATH);
+
+                if (build == 0) {
+                    Files.setLastModifiedTime(generatedFilePath, lastModifiedTime);
+                }
+            }
+        } finally {
+            System.clearProperty(BAL_CODEGEN_BATCH);
+        }
+
+        // The same code is generated in the second build, so the file is left as is.
+        Assert.assertEquals(Files.getLastModifiedTime(generatedFilePath), lastModifiedTime);
+
+        deleteGeneratedDir(serviceResourceDirectoryName);
+    }
+
+    @Test
+    public void testCodeFunctionsReplayedFromLockFile() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator +
+                "code-functions-batch";
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        Path lockFilePath = projectPath.resolve("np.lock");
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(serviceResourceDirectoryName, "code_functions_batch_code_response.txt"))
+                .setResponseCode(200));
+
+        System.setProperty(BAL_CODEGEN_BATCH, "true");
+        System.setProperty(BAL_CODEGEN_LOCK, "update");
+        try {
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+        } finally {
+            System.clearProperty(BAL_CODEGEN_BATCH);
+        }
+        takeRequestPayload(BATCH_CODE_PATH);
+        Assert.assertTrue(Files.isRegularFile(lockFilePath));
+        deleteGeneratedDir(serviceResourceDirectoryName);
+
+        final Project naturalExprProject = loadPackageProject(projectPath);
+        System.setProperty(BAL_CODEGEN_LOCK, "replay");
+        try {
+            naturalExprProject.currentPackage().runCodeGenAndModifyPlugins();
+        } finally {
+            System.clearProperty(BAL_CODEGEN_LOCK);
+            Files.delete(lockFilePath);
+        }
+
+        // The code recorded in the first build is used without sending any requests.
+        RecordedRequest recordedRequest = server.takeRequest(3L, TimeUnit.SECONDS);
+        Assert.assertNull(recordedRequest);
+
+        deleteGeneratedDir(serviceResourceDirectoryName);
+
+        Assert.assertEquals(
+                buildAndRunExecutable(naturalExprProject, getJarPath(projectPath.toString(), naturalExprProject)),
+                "30 2");
+    }
+
+    @Test
+    public void testCodeWithErrorsNotRecordedInLockFile() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator + "code-function";
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        Path lockFilePath = projectPath.resolve("np.lock");
+        JsonObject previousEntry = new JsonObject();
+        previousEntry.addProperty("module", "code_functions");
+        previousEntry.addProperty("name", "sortEmployees");
+        previousEntry.addProperty("fingerprint", "outdated");
+        previousEntry.addProperty("code", "function sortEmployeesNPGenerated(Employee[] employees) " +
+                "returns Employee[] => employees;");
+        JsonObject previousLock = new JsonObject();
+        previousLock.addProperty("version", 1);
+        JsonArray previousFunctions = new JsonArray();
+        previousFunctions.add(previousEntry);
+        previousLock.add("functions", previousFunctions);
+        previousLock.add("expressions", new JsonArray());
+        Files.writeString(lockFilePath, previousLock.toString());
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(serviceResourceDirectoryName, "code_function_code_response.txt"))
+                .setResponseCode(200));
+
+        // The generated code has errors that are left as is without repairs.
+        System.setProperty(BAL_CODEGEN_LOCK, "update");
+        System.setProperty(BAL_CODEGEN_MAX_REPAIR_ROUNDS, "0");
+        try {
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+            takeRequestPayload(CODE_PATH);
+            deleteGeneratedDir(serviceResourceDirectoryName);
+
+            // The entry recorded earlier for the function is kept instead.
+            JsonObject lock = JsonParser.parseString(getFileContent(lockFilePath)).getAsJsonObject();
+            Assert.assertEquals(lock.getAsJsonArray("functions"), previousFunctions);
+        } finally {
+            System.clearProperty(BAL_CODEGEN_LOCK);
+            System.clearProperty(BAL_CODEGEN_MAX_REPAIR_ROUNDS);
+            Files.delete(lockFilePath);
+        }
+    }
+
+    @Test
+    public void testLockedCodeWithErrorsRegenerated() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator + "code-function";
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        Path lockFilePath = projectPath.resolve("np.lock");
+        System.setProperty(BAL_CODEGEN_LOCK, "update");
+        try {
+            enqueueCodeFunctionResponses(serviceResourceDirectoryName);
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+            takeRequestPayload(CODE_PATH);
+            takeRequestPayload(REPAIR_PATH);
+            deleteGeneratedDir(serviceResourceDirectoryName);
+            String recordedLock = getFileContent(lockFilePath);
+
+            // The recorded code no longer compiles, as if a declaration it uses had changed since it was recorded.
+            JsonObject lock = JsonParser.parseString(recordedLock).getAsJsonObject();
+            JsonObject entry = lock.getAsJsonArray("functions").get(0).getAsJsonObject();
+            entry.addProperty("code", entry.get("code").getAsString().replace("salary", "pay"));
+            Files.writeString(lockFilePath, lock.toString());
+
+            // The prompt is unchanged, but the code is generated again in update mode.
+            enqueueCodeFunctionResponses(serviceResourceDirectoryName);
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+            takeRequestPayload(CODE_PATH);
+            takeRequestPayload(REPAIR_PATH);
+            deleteGeneratedDir(serviceResourceDirectoryName);
+            Assert.assertEquals(getFileContent(lockFilePath), recordedLock);
+        } finally {
+            System.clearProperty(BAL_CODEGEN_LOCK);
+            Files.deleteIfExists(lockFilePath);
+        }
+    }
+
+    @Test
+    public void testLockedCodeRegeneratedOnDeclarationChange() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator + "code-function";
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        Path lockFilePath = projectPath.resolve("np.lock");
+        System.setProperty(BAL_CODEGEN_LOCK, "update");
+        try {
+            enqueueCodeFunctionResponses(serviceResourceDirectoryName);
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+            takeRequestPayload(CODE_PATH);
+            takeRequestPayload(REPAIR_PATH);
+            deleteGeneratedDir(serviceResourceDirectoryName);
+
+            // A declaration the function doesn't depend on is added.
+            modifyMainDocument(loadPackageProject(projectPath), "public function main() {",
+                    "const MAX_EMPLOYEES = 10;\n\npublic function main() {").runCodeGenAndModifyPlugins();
+            Assert.assertNull(server.takeRequest(3L, TimeUnit.SECONDS));
+            deleteGeneratedDir(serviceResourceDirectoryName);
+
+            // A type referred to from the signature is changed.
+            enqueueCodeFunctionResponses(serviceResourceDirectoryName);
+            modifyMainDocument(loadPackageProject(projectPath), "decimal salary;",
+                    "decimal salary;\n    int age?;").runCodeGenAndModifyPlugins();
+            takeRequestPayload(CODE_PATH);
+            takeRequestPayload(REPAIR_PATH);
+            deleteGeneratedDir(serviceResourceDirectoryName);
+        } finally {
+            System.clearProperty(BAL_CODEGEN_LOCK);
+            Files.deleteIfExists(lockFilePath);
+        }
+    }
+
+    @Test
+    public void testRepairWithMoreErrorsDiscarded() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator + "code-function";
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(serviceResourceDirectoryName, "code_function_code_response.txt"))
+                .setResponseCode(200));
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(serviceResourceDirectoryName,
+                        "code_function_repair_with_more_errors_response.json"))
+                .setResponseCode(200)
+                .setHeader("Content-type", "application/json"));
+
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+
+        takeRequestPayload(CODE_PATH);
+        takeRequestPayload(REPAIR_PATH);
+        // The repaired code has more errors, so it is discarded and no further repair is requested.
+        Assert.assertNull(server.takeRequest(3L, TimeUnit.SECONDS));
+        String generatedCode = getFileContent(
+                projectPath.resolve("generated").resolve("sortEmployees_np_generated.bal"));
+        Assert.assertTrue(generatedCode.contains("ascending = [false, true]"));
+        Assert.assertFalse(generatedCode.contains("employeeCount"));
+        deleteGeneratedDir(serviceResourceDirectoryName);
+
+        JsonObject targetReport = getTargetReports(projectPath).get(0).getAsJsonObject();
+        Assert.assertEquals(targetReport.get("repairRounds").getAsInt(), 1);
+        JsonArray diagnosticCounts = targetReport.getAsJsonArray("diagnosticCounts");
+        Assert.assertEquals(diagnosticCounts.size(), 2);
+        Assert.assertTrue(diagnosticCounts.get(1).getAsInt() > diagnosticCounts.get(0).getAsInt());
+    }
+
+    @Test
+    public void testRepairStoppedOnceTimeBudgetExceeded() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator + "code-function";
+        System.setProperty(BAL_CODEGEN_REPAIR_TIME_BUDGET_SECONDS, "1");
+        try {
+            // The time budget is used up while waiting for the generated code, before any repair.
+            server.enqueue(new MockResponse()
+                    .setBody(getCodeMockResponse(serviceResourceDirectoryName, "code_function_code_response.txt"))
+                    .setBodyDelay(2, TimeUnit.SECONDS)
+                    .setResponseCode(200));
+
+            final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+
+            takeRequestPayload(CODE_PATH);
+            Assert.assertNull(server.takeRequest(3L, TimeUnit.SECONDS));
+            deleteGeneratedDir(serviceResourceDirectoryName);
+        } finally {
+            System.clearProperty(BAL_CODEGEN_REPAIR_TIME_BUDGET_SECONDS);
+        }
+    }
+
+    @Test
+    public void testCodeFunctionReusedFromCache() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator + "code-function";
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        Path cacheDirectory = Files.createTempDirectory("np-codegen-cache");
+        System.setProperty(BAL_CODEGEN_DISABLE_CACHE, "false");
+        System.setProperty(BAL_CODEGEN_CACHE_DIR, cacheDirectory.toString());
+        try {
+            enqueueCodeFunctionResponses(serviceResourceDirectoryName);
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+            takeRequestPayload(CODE_PATH);
+            takeRequestPayload(REPAIR_PATH);
+            deleteGeneratedDir(serviceResourceDirectoryName);
+
+            // The repaired code is reused as long as neither the prompt nor the declarations it depends on change.
+            final Project naturalExprProject = loadPackageProject(projectPath);
+            naturalExprProject.currentPackage().runCodeGenAndModifyPlugins();
+            Assert.assertNull(server.takeRequest(3L, TimeUnit.SECONDS));
+            Assert.assertEquals(getTargetReports(projectPath).get(0).getAsJsonObject().get("source").getAsString(),
+                    "cached");
+            validateGeneratedCodeAndDeleteGeneratedDir(serviceResourceDirectoryName,
+                    "sortEmployees_np_generated.bal");
+            Assert.assertEquals(
+                    buildAndRunExecutable(naturalExprProject, getJarPath(projectPath.toString(), naturalExprProject)),
+                    "[{\"name\":\"David\",\"salary\":70000},{\"name\":\"Bob\",\"salary\":60000}," +
+                            "{\"name\":\"Alice\",\"salary\":50000},{\"name\":\"Charlie\",\"salary\":50000}]");
+
+            enqueueCodeFunctionResponses(serviceResourceDirectoryName);
+            modifyMainDocument(loadPackageProject(projectPath), "salary in descending order",
+                    "salary in descending order, highest first,").runCodeGenAndModifyPlugins();
+            takeRequestPayload(CODE_PATH);
+            takeRequestPayload(REPAIR_PATH);
+            deleteGeneratedDir(serviceResourceDirectoryName);
+
+            // A declaration the function doesn't depend on is added.
+            modifyMainDocument(loadPackageProject(projectPath), "public function main() {",
+                    "const MAX_EMPLOYEES = 10;\n\npublic function main() {").runCodeGenAndModifyPlugins();
+            Assert.assertNull(server.takeRequest(3L, TimeUnit.SECONDS));
+            deleteGeneratedDir(serviceResourceDirectoryName);
+
+            // A type referred to from the signature is changed.
+            enqueueCodeFunctionResponses(serviceResourceDirectoryName);
+            modifyMainDocument(loadPackageProject(projectPath), "decimal salary;",
+                    "decimal salary;\n    int age?;").runCodeGenAndModifyPlugins();
+            takeRequestPayload(CODE_PATH);
+            takeRequestPayload(REPAIR_PATH);
+            deleteGeneratedDir(serviceResourceDirectoryName);
+        } finally {
+            System.clearProperty(BAL_CODEGEN_DISABLE_CACHE);
+            System.clearProperty(BAL_CODEGEN_CACHE_DIR);
+            deleteDirectory(cacheDirectory);
+        }
+    }
+
+    @Test
+    public void testCodeFunctionWithErrorsNotCached() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator + "code-function";
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        Path cacheDirectory = Files.createTempDirectory("np-codegen-cache");
+        System.setProperty(BAL_CODEGEN_DISABLE_CACHE, "false");
+        System.setProperty(BAL_CODEGEN_CACHE_DIR, cacheDirectory.toString());
+        try {
+            for (int build = 0; build < 2; build++) {
+                server.enqueue(new MockResponse()
+                        .setBody(getCodeMockResponse(serviceResourceDirectoryName, "code_function_code_response.txt"))
+                        .setResponseCode(200));
+                // Neither repair fixes the errors in the generated code.
+                for (int round = 0; round < 2; round++) {
+                    server.enqueue(new MockResponse()
+                            .setBody(getCodeMockResponse(serviceResourceDirectoryName,
+                                    "code_function_repair_with_errors_response.json"))
+                            .setResponseCode(200)
+                            .setHeader("Content-type", "application/json"));
+                }
+                loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+                // Code is generated again in the second build.
+                takeRequestPayload(CODE_PATH);
+                takeRequestPayload(REPAIR_PATH);
+                takeRequestPayload(REPAIR_PATH);
+                deleteGeneratedDir(serviceResourceDirectoryName);
+            }
+            Assert.assertNull(server.takeRequest(3L, TimeUnit.SECONDS));
+        } finally {
+            System.clearProperty(BAL_CODEGEN_DISABLE_CACHE);
+            System.clearProperty(BAL_CODEGEN_CACHE_DIR);
+            deleteDirectory(cacheDirectory);
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedCacheEntriesEvicted() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator + "code-function";
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        Path cacheDirectory = Files.createTempDirectory("np-codegen-cache");
+        // An entry that was last used before anything else, and fills the cache on its own.
+        Path staleEntry = cacheDirectory.resolve("stale.bal");
+        Files.write(staleEntry, new byte[1024 * 1024]);
+        Files.setLastModifiedTime(staleEntry, FileTime.fromMillis(0));
+        System.setProperty(BAL_CODEGEN_DISABLE_CACHE, "false");
+        System.setProperty(BAL_CODEGEN_CACHE_DIR, cacheDirectory.toString());
+        System.setProperty(BAL_CODEGEN_CACHE_MAX_SIZE_MB, "1");
+        try {
+            enqueueCodeFunctionResponses(serviceResourceDirectoryName);
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+            takeRequestPayload(CODE_PATH);
+            takeRequestPayload(REPAIR_PATH);
+            deleteGeneratedDir(serviceResourceDirectoryName);
+            Assert.assertFalse(Files.exists(staleEntry));
+
+            // The entries added in the first build are retained.
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+            Assert.assertNull(server.takeRequest(3L, TimeUnit.SECONDS));
+            deleteGeneratedDir(serviceResourceDirectoryName);
+        } finally {
+            System.clearProperty(BAL_CODEGEN_DISABLE_CACHE);
+            System.clearProperty(BAL_CODEGEN_CACHE_DIR);
+            System.clearProperty(BAL_CODEGEN_CACHE_MAX_SIZE_MB);
+            deleteDirectory(cacheDirectory);
+        }
+    }
+
+    @Test
+    public void testSameNamedCodeFunctionsInModules() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator +
+                "code-functions-in-modules";
+        String defaultModuleCodeResponse =
+                getCodeMockResponse(serviceResourceDirectoryName, "default_module_code_response.txt");
+        String utilModuleCodeResponse =
+                getCodeMockResponse(serviceResourceDirectoryName, "util_module_code_response.txt");
+        String utilModuleRepairResponse =
+                getCodeMockResponse(serviceResourceDirectoryName, "util_module_repair_response.json");
+        // Code for the functions is generated concurrently, so responses are chosen by the prompt.
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (REPAIR_PATH.equals(request.getPath())) {
+                    return new MockResponse().setBody(utilModuleRepairResponse).setResponseCode(200)
+                            .setHeader("Content-type", "application/json");
+                }
+                String body = request.getBody().clone().readUtf8();
+                return new MockResponse().setResponseCode(200)
+                        .setBody(body.contains("value squared") ? utilModuleCodeResponse : defaultModuleCodeResponse);
+            }
+        });
+
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        final Project naturalExprProject = loadPackageProject(projectPath);
+        try {
+            naturalExprProject.currentPackage().runCodeGenAndModifyPlugins();
+        } finally {
+            server.setDispatcher(new QueueDispatcher());
+        }
+
+        // Only the code generated for the function in the util module is repaired, with the error in that code.
+        List<JsonObject> repairPayloads = takeRepairPayloads(3);
+        Assert.assertEquals(repairPayloads.size(), 1);
+        JsonObject repairPayload = repairPayloads.get(0);
+        Assert.assertTrue(repairPayload.toString().contains("value squared"));
+        JsonArray diagnostics = repairPayload.getAsJsonObject("diagnosticRequest").getAsJsonArray("diagnostics");
+        Assert.assertEquals(diagnostics.size(), 1);
+        Assert.assertTrue(diagnostics.get(0).getAsJsonObject().get("message").getAsString()
+                .contains("undefined symbol 'valu'"));
+
+        deleteGeneratedDir(serviceResourceDirectoryName);
+
+        int repairRounds = 0;
+        for (JsonElement targetReport : getTargetReports(projectPath)) {
+            Assert.assertEquals(targetReport.getAsJsonObject().get("status").getAsString(), "succeeded");
+            repairRounds += targetReport.getAsJsonObject().get("repairRounds").getAsInt();
+        }
+        Assert.assertEquals(repairRounds, 1);
+
+        Assert.assertEquals(
+                buildAndRunExecutable(naturalExprProject, getJarPath(projectPath.toString(), naturalExprProject)),
+                "6 9");
+    }
+
+    @Test
+    public void testCodeFunctionCausingErrorOutsideGeneratedCode() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator +
+                "code-functions-with-redeclared-symbol";
+        String employeeNameCodeResponse =
+                getCodeMockResponse(serviceResourceDirectoryName, "employee_name_code_response.txt");
+        String departmentNameCodeResponse =
+                getCodeMockResponse(serviceResourceDirectoryName, "department_name_code_response.txt");
+        String departmentNameRepairResponse =
+                getCodeMockResponse(serviceResourceDirectoryName, "department_name_repair_response.json");
+        // Code for the functions is generated concurrently, and validated together, so responses are chosen by
+        // the prompt.
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (REPAIR_PATH.equals(request.getPath())) {
+                    return new MockResponse().setBody(departmentNameRepairResponse).setResponseCode(200)
+                            .setHeader("Content-type", "application/json");
+                }
+                String prompt = JsonParser.parseString(request.getBody().clone().readUtf8()).getAsJsonObject()
+                        .get("usecase").getAsString();
+                return new MockResponse().setResponseCode(200).setBody(
+                        prompt.contains("getDepartmentName") ? departmentNameCodeResponse : employeeNameCodeResponse);
+            }
+        });
+
+        final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+        final Project naturalExprProject = loadPackageProject(projectPath);
+        try {
+            naturalExprProject.currentPackage().runCodeGenAndModifyPlugins();
+        } finally {
+            server.setDispatcher(new QueueDispatcher());
+        }
+
+        // The type generated for one function redeclares a type of the package, which is reported only for the
+        // code generated for that function, wherever the error is located.
+        List<JsonObject> repairPayloads = takeRepairPayloads(3);
+        Assert.assertEquals(repairPayloads.size(), 1);
+        JsonObject repairPayload = repairPayloads.get(0);
+        Assert.assertTrue(repairPayload.get("usecase").getAsString().contains("'getDepartmentNameNPGenerated'"));
+        Assert.assertTrue(repairPayload.getAsJsonObject("diagnosticRequest").getAsJsonArray("diagnostics")
+                .toString().contains("redeclared symbol 'Department'"));
+
+        deleteGeneratedDir(serviceResourceDirectoryName);
+
+        Assert.assertEquals(
+                buildAndRunExecutable(naturalExprProject, getJarPath(projectPath.toString(), naturalExprProject)),
+                "Alice Engineering");
+    }
+
+    @Test
+    public void testCodeFunctionWithPrunedContext() throws IOException, InterruptedException {
+        String serviceResourceDirectoryName = "code-function-projects" + File.separator +
+                "code-function-with-pruned-context";
+        System.setProperty(BAL_CODEGEN_CONTEXT, "pruned");
+        try {
+            server.enqueue(new MockResponse()
+                    .setBody(getCodeMockResponse(serviceResourceDirectoryName, "employee_names_code_response.txt"))
+                    .setResponseCode(200));
+
+            final Path projectPath = RESOURCE_DIRECTORY.resolve(serviceResourceDirectoryName);
+            loadPackageProject(projectPath).currentPackage().runCodeGenAndModifyPlugins();
+
+            JsonArray sourceFiles = takeRequestPayload(CODE_PATH).getAsJsonArray("sourceFiles");
+            Assert.assertEquals(sourceFiles.size(), 1);
+            JsonObject sourceFile = sourceFiles.get(0).getAsJsonObject();
+            Assert.assertEquals(sourceFile.get("filePath").getAsString(), "main.bal");
+            String content = sourceFile.get("content").getAsString();
+
+            // The types in the signature, transitively, the types mentioned in the prompt, and the clients of the
+            // module are selected, along with the imports.
+            Assert.assertTrue(content.contains("import ballerina/io;"));
+            Assert.assertTrue(content.contains("type Employee record {|\nstring name;\nDepartment department;\n|};"));
+            Assert.assertTrue(content.contains("type Department record {|"));
+            Assert.assertTrue(content.contains("Salary band of an employee."));
+            Assert.assertTrue(content.contains("type SalaryBand record {|"));
+            Assert.assertTrue(content.contains("final HrClient hrClient = new;"));
+            Assert.assertTrue(content.contains("client class HrClient {"));
+
+            // Unrelated declarations, comments, and indentation are left out.
+            Assert.assertFalse(content.contains("type Project"));
+            Assert.assertFalse(content.contains("getProjects"));
+            Assert.assertFalse(content.contains("public function main"));
+            Assert.assertFalse(content.contains("Employees of the company."));
+            Assert.assertFalse(content.contains("\n "));
+
+            Assert.assertNull(server.takeRequest(3L, TimeUnit.SECONDS));
+            deleteGeneratedDir(serviceResourceDirectoryName);
+        } finally {
+            System.clearProperty(BAL_CODEGEN_CONTEXT);
+        }
+    }
+
     @AfterSuite
     void tearDown() throws Exception {
         server.shutdown();
@@ -254,6 +985,32 @@ public class CodeGenerationTest {
                 BuildProject.load(projectEnvironmentBuilder, path, buildOptions);
     }
 
+    private void enqueueCodeFunctionResponses(String directory) throws IOException {
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(directory, "code_function_code_response.txt"))
+                .setResponseCode(200));
+        server.enqueue(new MockResponse()
+                .setBody(getCodeMockResponse(directory, "code_function_repair_response.json"))
+                .setResponseCode(200)
+                .setHeader("Content-type", "application/json"));
+    }
+
+    private static Package modifyMainDocument(Project project, String text, String replacement) {
+        Module module = project.currentPackage().getDefaultModule();
+        for (DocumentId documentId : module.documentIds()) {
+            Document document = module.document(documentId);
+            if (!"main.bal".equals(document.name())) {
+                continue;
+            }
+
+            String content = String.join("\n", document.textDocument().textLines());
+            Assert.assertTrue(content.contains(text));
+            return document.modify().withContent(content.replace(text, replacement)).apply().module()
+                    .packageInstance();
+        }
+        throw new AssertionError("main.bal not found");
+    }
+
     private String getCodeMockResponse(String directory, String file) throws IOException {
         return getFileContent(SERVER_RESOURCES.resolve(directory).resolve(file));
     }
@@ -262,6 +1019,11 @@ public class CodeGenerationTest {
         return String.join("\n", Files.readAllLines(path));
     }
 
+    private JsonArray getTargetReports(Path projectPath) throws IOException {
+        return JsonParser.parseString(getFileContent(projectPath.resolve(TARGET).resolve("np-codegen-report.json")))
+                .getAsJsonObject().getAsJsonArray("targets");
+    }
+
     private static JsonObject getExpectedPayload(String directory, String file) throws IOException {
         try (FileReader reader = new FileReader(
                 SERVER_RESOURCES.resolve(directory).resolve(file).toString(), StandardCharsets.UTF_8)) {
@@ -275,6 +1037,11 @@ public class CodeGenerationTest {
 
     private void assertRepairRequest(String dirName, String repairRequestJsonFileName)
             throws InterruptedException, IOException {
+        assertRequest(REPAIR_PATH, getExpectedRepairPayload(dirName, repairRequestJsonFileName));
+    }
+
+    private static JsonObject getExpectedRepairPayload(String dirName, String repairRequestJsonFileName)
+            throws IOException {
         JsonObject expectedPayload = getExpectedPayload(dirName, repairRequestJsonFileName);
         JsonObject diagnosticsRequest = expectedPayload.getAsJsonObject("diagnosticRequest");
         JsonArray diagnostics = diagnosticsRequest.getAsJsonArray("diagnostics");
@@ -287,16 +1054,43 @@ public class CodeGenerationTest {
             messageObj.addProperty("message", message);
             diagnostics.set(i, messageObj);
         }
-        assertRequest(REPAIR_PATH, expectedPayload);
+        return expectedPayload;
     }
 
     private void assertRequest(String path, JsonObject expectedPayload) throws InterruptedException {
+        Assert.assertEquals(takeRequestPayload(path), expectedPayload);
+    }
+
+    private List<JsonObject> takeRepairPayloads(int requestCount) throws InterruptedException {
+        List<JsonObject> repairPayloads = new ArrayList<>();
+        for (int i = 0; i < requestCount; i++) {
+            RecordedRequest recordedRequest = server.takeRequest();
+            JsonObject payload = JsonParser.parseString(recordedRequest.getBody().readUtf8()).getAsJsonObject();
+            if (REPAIR_PATH.equals(recordedRequest.getPath())) {
+                repairPayloads.add(payload);
+            } else {
+                Assert.assertEquals(recordedRequest.getPath(), CODE_PATH);
+            }
+        }
+        Assert.assertNull(server.takeRequest(3L, TimeUnit.SECONDS));
+        return repairPayloads;
+    }
+
+    private JsonObject takeRequestPayload(String path) throws InterruptedException {
         RecordedRequest recordedRequest = server.takeRequest();
         Assert.assertEquals(recordedRequest.getPath(), path);
         Assert.assertEquals(recordedRequest.getHeader("Authorization"), "Bearer not-a-real-token");
-        JsonObject actualPayload = JsonParser.parseString(
+        return JsonParser.parseString(
                 recordedRequest.getBody().readUtf8().replace("\\r\\n", "\\n")).getAsJsonObject();
-        Assert.assertEquals(actualPayload, expectedPayload);
+    }
+
+    private static String getSha256Digest(String content) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private void validateGeneratedCodeAndDeleteGeneratedDir(String dirName,
@@ -318,4 +1112,23 @@ public class CodeGenerationTest {
             out.println("Failed to delete file and/or directory");
         }
     }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void deleteGeneratedDir(String dirName) throws IOException {
+        Path generatedDirPath = RESOURCE_DIRECTORY.resolve(dirName).resolve("generated");
+        Assert.assertTrue(Files.isDirectory(generatedDirPath));
+        try (Stream<Path> generatedFiles = Files.list(generatedDirPath)) {
+            for (Path generatedFile : generatedFiles.toList()) {
+                Files.delete(generatedFile);
+            }
+        }
+        Files.delete(generatedDirPath);
+    }
 }
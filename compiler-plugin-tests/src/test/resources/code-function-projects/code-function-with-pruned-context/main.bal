@@ -0,0 +1,41 @@
+import ballerina/io;
+
+// Employees of the company.
+type Employee record {|
+    string name;
+    Department department;
+|};
+
+type Department record {|
+    string name;
+|};
+
+# Salary band of an employee.
+type SalaryBand record {|
+    decimal min;
+    decimal max;
+|};
+
+type Project record {|
+    string name;
+|};
+
+client class HrClient {
+    remote function getSalaryBand(string name) returns SalaryBand {
+        return {min: 1000, max: 2000};
+    }
+}
+
+final HrClient hrClient = new;
+
+function getProjects(Employee employee) returns Project[] {
+    return [];
+}
+
+function getEmployeeNames(Employee[] employees) returns string[] = @natural:code {
+    prompt: string `Give me the names of the employees whose SalaryBand has a max above 1500`
+} external;
+
+public function main() {
+    io:println(getEmployeeNames([{name: "Alice", department: {name: "Engineering"}}]));
+}
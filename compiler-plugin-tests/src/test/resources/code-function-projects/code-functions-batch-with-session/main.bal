@@ -0,0 +1,21 @@
+import ballerina/io;
+
+type Order record {|
+    decimal amount;
+|};
+
+type Customer record {|
+    string name;
+|};
+
+function getTotalAmount(Order[] orders) returns decimal = @natural:code {
+    prompt: string `Give me the total amount of the orders`
+} external;
+
+function getCustomerNames(Customer[] customers) returns string[] = @natural:code {
+    prompt: string `Give me the names of the customers`
+} external;
+
+public function main() {
+    io:println(getTotalAmount([{amount: 10}, {amount: 20}]), " ", getCustomerNames([{name: "Alice"}]));
+}
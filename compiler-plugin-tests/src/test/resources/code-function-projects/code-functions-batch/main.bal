@@ -0,0 +1,14 @@
+import ballerina/io;
+
+function sumOfSquares(int[] values) returns int = @natural:code {
+    prompt: string `Give me the sum of the squares of the values`
+} external;
+
+function countEvenValues(int[] values) returns int = @natural:code {
+    prompt: string `Give me the number of even values`
+} external;
+
+public function main() {
+    int[] values = [1, 2, 3, 4];
+    io:println(sumOfSquares(values), " ", countEvenValues(values));
+}
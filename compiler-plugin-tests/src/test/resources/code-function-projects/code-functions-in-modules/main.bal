@@ -0,0 +1,11 @@
+import code_functions_in_modules.util;
+
+import ballerina/io;
+
+function transform(int value) returns int = @natural:code {
+    prompt: string `Give me the value doubled`
+} external;
+
+public function main() {
+    io:println(transform(3), " ", util:transform(3));
+}
@@ -0,0 +1,3 @@
+public function transform(int value) returns int = @natural:code {
+    prompt: string `Give me the value squared`
+} external;
@@ -0,0 +1,23 @@
+import ballerina/io;
+
+type Employee record {|
+    string name;
+    Department department;
+|};
+
+type Department record {|
+    string name;
+|};
+
+function getEmployeeName(Employee employee) returns string = @natural:code {
+    prompt: string `Give me the name of the employee`
+} external;
+
+function getDepartmentName(Employee employee) returns string = @natural:code {
+    prompt: string `Give me the name of the department of the employee`
+} external;
+
+public function main() {
+    Employee employee = {name: "Alice", department: {name: "Engineering"}};
+    io:println(getEmployeeName(employee), " ", getDepartmentName(employee));
+}
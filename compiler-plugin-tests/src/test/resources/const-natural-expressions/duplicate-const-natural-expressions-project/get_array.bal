@@ -0,0 +1,7 @@
+function getIntegers() returns int[]|error => const natural {
+    Give me an array of length 10, with integers between 1000 and ${END}.
+};
+
+function getMoreIntegers() returns int[]|error => const natural {
+    Give me an array of length 10, with integers between 1000 and ${END}.
+};
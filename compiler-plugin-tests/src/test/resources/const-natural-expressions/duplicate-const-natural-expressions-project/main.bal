@@ -0,0 +1,9 @@
+import ballerina/io;
+
+const int END = 2000;
+
+public function main() returns error? {
+    int[] integers = check getIntegers();
+    int[] moreIntegers = check getMoreIntegers();
+    io:println(integers == moreIntegers);
+}
@@ -0,0 +1,172 @@
+// Types whose JSON schemas are generated directly. Each field of `Roots` is a type whose schema is compared with
+// the schema generated by the type mapper.
+type Roots record {|
+    Person person;
+    Address address;
+    Colour colour;
+    Status status;
+    Collections collections;
+    Item item;
+    TreeNode tree;
+    Expression expression;
+    LinkedList list;
+    ImmutablePerson immutablePerson;
+    Shape shape;
+    Name name;
+    OptionalName optionalName;
+    Id id;
+    MaybeId maybeId;
+    OptionalJson optionalJson;
+    QuotedNames quotedNames;
+|};
+
+// Types that refer to types whose JSON schemas are generated with the type mapper.
+type FallbackRoots record {|
+    Document document;
+    Small small;
+    DocumentedXml documentedXml;
+|};
+
+# A person.
+type Person record {|
+    # Name of the person
+    string name;
+    # Age of the person
+    int age;
+    # Height of the person, in metres
+    float height?;
+    # Salary of the person
+    decimal salary = 0;
+    boolean employed;
+    byte flags;
+    # Nickname of the person, if any
+    string? nickname;
+    # Tags of the person
+    string[] tags;
+    # Favourite colour of the person
+    Colour favouriteColour;
+    Status status;
+    json metadata;
+    # Anything else about the person
+    anydata extra;
+    map<string> labels;
+    # Either an ID or a name
+    int|string reference;
+    # An ID or a name, if any
+    (int|string)? optionalReference;
+    # Metadata, if any
+    json? optionalMetadata;
+    # Address of the person
+    Address? address;
+    # Bytes of the person
+    byte[] data;
+    Colour|Status colourOrStatus;
+|};
+
+type Address record {|
+    string city;
+    string? zip;
+    int? floor = ();
+|};
+
+enum Colour {
+    RED,
+    GREEN = "green"
+}
+
+const ACTIVE = "active";
+const INACTIVE = "inactive";
+
+type Status ACTIVE|INACTIVE|"pending";
+
+type Collections record {|
+    int[] numbers;
+    int[3] fixed;
+    Person[][] nested;
+    [int, string] pair;
+    [int, string...] pairWithRest;
+    [int, int] samePair;
+    [int] single;
+    table<Address> addresses;
+    table<Item> key(id) items;
+    (int|float)[] mixed;
+    Address?[] optionalAddresses;
+    # Items, in order
+    Item[] orderedItems;
+    map<Item> itemsById;
+|};
+
+type Item record {|
+    readonly string id;
+    int quantity;
+|};
+
+type TreeNode record {|
+    int value;
+    TreeNode[] children;
+    TreeNode? parent;
+|};
+
+type Expression Literal|Sum;
+
+type Literal record {|
+    int value;
+|};
+
+type Sum record {|
+    Expression left;
+    Expression right;
+|};
+
+type LinkedList record {|
+    int head;
+    LinkedList? tail;
+|};
+
+type ImmutablePerson readonly & Person;
+
+type Shape Circle|Square|Triangle;
+
+type Circle record {|
+    float radius;
+|};
+
+type Square record {|
+    float side;
+|};
+
+type Triangle record {|
+    float side;
+|};
+
+type Name string;
+
+type OptionalName Name?;
+
+type Id int|string;
+
+type MaybeId Id?;
+
+type OptionalJson json?;
+
+type QuotedNames record {|
+    string 'type;
+    int first\-name;
+    boolean 'order\.id;
+    string \u{41}lias;
+|};
+
+type Document record {|
+    string title;
+    xml content;
+|};
+
+type Small record {|
+    int:Signed32 value;
+    string name;
+|};
+
+type DocumentedXml record {|
+    # Content of the document
+    xml? content;
+|};
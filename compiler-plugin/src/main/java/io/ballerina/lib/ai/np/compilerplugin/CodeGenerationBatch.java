@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationEvents.EventStreamParsing;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationReport.TargetReport;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.GeneratedCode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationEventStreamParser.CONTENT_BLOCK_DELTA_EVENT;
+import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationEventStreamParser.ERROR_MESSAGE;
+import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationEventStreamParser.FUNCTIONS_EVENT;
+import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationEventStreamParser.TEXT;
+import static io.ballerina.lib.ai.np.compilerplugin.Commons.CONTENT;
+import static io.ballerina.lib.ai.np.compilerplugin.Commons.FILE_PATH;
+
+/**
+ * A batch of code generation targets of a module, for which code is generated with a single request, and repaired
+ * with a single request per repair round.
+ * <p>
+ * The source files common to all the targets of a request are sent once, and each target is sent with only the
+ * source files specific to it. The events for all the targets are streamed in the same response, each tagged with
+ * the ID of its target. A repair round is sent once each target that is still in progress has either requested a
+ * repair or completed.
+ *
+ * @since 0.4.3
+ */
+class CodeGenerationBatch {
+
+    private static final String SOURCE_FILES = "sourceFiles";
+    private static final String TARGETS = "targets";
+    private static final String REPAIRS = "repairs";
+    private static final String TARGET_ID = "targetId";
+    private static final String FUNCTIONS = "functions";
+    private static final String REPAIR_RESPONSES = "repairResponses";
+    private static final String REPAIR_RESPONSE = "repairResponse";
+    private static final String ERROR_EVENT = "event: error";
+    private static final Set<String> TARGET_EVENTS = Set.of(CONTENT_BLOCK_DELTA_EVENT, FUNCTIONS_EVENT, ERROR_EVENT);
+
+    private final CopilotClient client;
+    private final List<TargetReport> reports;
+    // Guarded by this.
+    private final Map<String, PendingRepair> pendingRepairs = new LinkedHashMap<>();
+    private int targetsInProgress;
+
+    /**
+     * Creates a batch.
+     *
+     * @param client  client to send the requests with
+     * @param reports report of each target, in the order of the targets
+     */
+    CodeGenerationBatch(CopilotClient client, List<TargetReport> reports) {
+        this.client = client;
+        this.reports = reports;
+        this.targetsInProgress = reports.size();
+        reports.forEach(report -> report.setBatchSize(reports.size()));
+    }
+
+    /**
+     * Generates code for all the targets of the batch.
+     *
+     * @param payloads code generation payload of each target, in the order of the targets
+     * @return the code generated for each target, completed exceptionally if code could not be generated for it
+     */
+    List<CompletableFuture<GeneratedCode>> generate(List<JsonObject> payloads)
+            throws URISyntaxException, IOException, InterruptedException {
+        Map<String, JsonObject> targetPayloads = new LinkedHashMap<>();
+        Map<String, CodeGenerationEventStreamParser> parsers = new LinkedHashMap<>();
+        for (int i = 0; i < payloads.size(); i++) {
+            targetPayloads.put(getTargetId(i), payloads.get(i));
+            parsers.put(getTargetId(i), new CodeGenerationEventStreamParser());
+        }
+
+        Map<String, String> errors = new HashMap<>();
+        String target = getDescription(this.reports);
+        // Closing the body once the code blocks of all the targets are complete cancels the rest of the exchange.
+        try (InputStream body = this.client.generateCodeInBatch(createBatchPayload(targetPayloads, TARGETS), target,
+                stats -> this.reports.forEach(report -> report.recordRequest(stats)));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            parse(reader, parsers, errors, target);
+        }
+
+        List<CompletableFuture<GeneratedCode>> generatedCode = new ArrayList<>(payloads.size());
+        parsers.forEach((targetId, parser) -> {
+            String error = errors.get(targetId);
+            generatedCode.add(error == null ?
+                    CompletableFuture.completedFuture(CodeGenerationUtils.getGeneratedCode(parser)) :
+                    CompletableFuture.failedFuture(new RuntimeException(error)));
+        });
+        return generatedCode;
+    }
+
+    /**
+     * Requests a repair of the code generated for a target, along with the repairs requested for the other targets
+     * in the same round.
+     *
+     * @param targetIndex index of the target
+     * @param payload     code repair payload of the target
+     * @return the repair response for the target
+     */
+    String repair(int targetIndex, JsonObject payload) throws URISyntaxException, IOException, InterruptedException {
+        PendingRepair pendingRepair = new PendingRepair(this.reports.get(targetIndex), payload,
+                new CompletableFuture<>());
+        Map<String, PendingRepair> round;
+        synchronized (this) {
+            this.pendingRepairs.put(getTargetId(targetIndex), pendingRepair);
+            round = takeRoundIfReady();
+        }
+
+        if (round != null) {
+            sendRepairs(round);
+        }
+
+        try {
+            return pendingRepair.repairResponse().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof URISyntaxException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof InterruptedException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Records that no further repairs will be requested for a target. Must be called once for each target.
+     */
+    void complete() {
+        Map<String, PendingRepair> round;
+        synchronized (this) {
+            this.targetsInProgress--;
+            round = takeRoundIfReady();
+        }
+
+        if (round != null) {
+            sendRepairs(round);
+        }
+    }
+
+    private Map<String, PendingRepair> takeRoundIfReady() {
+        if (this.pendingRepairs.isEmpty() || this.pendingRepairs.size() < this.targetsInProgress) {
+            return null;
+        }
+
+        Map<String, PendingRepair> round = new LinkedHashMap<>(this.pendingRepairs);
+        this.pendingRepairs.clear();
+        return round;
+    }
+
+    private void sendRepairs(Map<String, PendingRepair> round) {
+        Map<String, JsonObject> payloads = new LinkedHashMap<>();
+        round.forEach((targetId, pendingRepair) -> payloads.put(targetId, pendingRepair.payload()));
+
+        try {
+            String body = this.client.repairCodeInBatch(createBatchPayload(payloads, REPAIRS),
+                    getDescription(round.values().stream().map(PendingRepair::report).toList()),
+                    stats -> round.values().forEach(pendingRepair -> pendingRepair.report().recordRequest(stats)));
+            JsonArray repairResponses = JsonParser.parseString(body).getAsJsonObject()
+                    .getAsJsonArray(REPAIR_RESPONSES);
+            for (JsonElement repairResponse : repairResponses) {
+                JsonObject repairResponseObj = repairResponse.getAsJsonObject();
+                PendingRepair pendingRepair = round.get(repairResponseObj.get(TARGET_ID).getAsString());
+                if (pendingRepair != null) {
+                    pendingRepair.repairResponse().complete(
+                            repairResponseObj.getAsJsonPrimitive(REPAIR_RESPONSE).getAsString());
+                }
+            }
+        } catch (URISyntaxException | IOException | InterruptedException | RuntimeException e) {
+            round.values().forEach(pendingRepair -> pendingRepair.repairResponse().completeExceptionally(e));
+        }
+
+        // A target without a response is left as is.
+        round.values().forEach(pendingRepair -> pendingRepair.repairResponse().complete(""));
+    }
+
+    private static JsonObject createBatchPayload(Map<String, JsonObject> payloads, String entriesName) {
+        // Source files are compared by their paths and content, rather than as JSON, which is hashed on each lookup.
+        Map<SourceFileKey, JsonElement> commonSourceFiles = null;
+        for (JsonObject payload : payloads.values()) {
+            Map<SourceFileKey, JsonElement> sourceFiles = new LinkedHashMap<>();
+            for (JsonElement sourceFile : payload.getAsJsonArray(SOURCE_FILES)) {
+                sourceFiles.putIfAbsent(SourceFileKey.from(sourceFile), sourceFile);
+            }
+
+            if (commonSourceFiles == null) {
+                commonSourceFiles = sourceFiles;
+            } else {
+                commonSourceFiles.keySet().retainAll(sourceFiles.keySet());
+            }
+        }
+
+        if (commonSourceFiles == null) {
+            commonSourceFiles = Map.of();
+        }
+
+        JsonObject batchPayload = new JsonObject();
+        JsonArray batchSourceFiles = new JsonArray(commonSourceFiles.size());
+        commonSourceFiles.values().forEach(batchSourceFiles::add);
+        batchPayload.add(SOURCE_FILES, batchSourceFiles);
+
+        JsonArray entries = new JsonArray(payloads.size());
+        for (Map.Entry<String, JsonObject> payload : payloads.entrySet()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty(TARGET_ID, payload.getKey());
+            for (Map.Entry<String, JsonElement> member : payload.getValue().entrySet()) {
+                if (!SOURCE_FILES.equals(member.getKey())) {
+                    entry.add(member.getKey(), member.getValue());
+                    continue;
+                }
+
+                JsonArray targetSourceFiles = new JsonArray();
+                for (JsonElement sourceFile : member.getValue().getAsJsonArray()) {
+                    if (!commonSourceFiles.containsKey(SourceFileKey.from(sourceFile))) {
+                        targetSourceFiles.add(sourceFile);
+                    }
+                }
+                if (!targetSourceFiles.isEmpty()) {
+                    entry.add(SOURCE_FILES, targetSourceFiles);
+                }
+            }
+            entries.add(entry);
+        }
+        batchPayload.add(entriesName, entries);
+        return batchPayload;
+    }
+
+    private static void parse(BufferedReader reader, Map<String, CodeGenerationEventStreamParser> parsers,
+                              Map<String, String> errors, String target) throws IOException {
+        EventStreamParsing event = new EventStreamParsing();
+        event.begin();
+        try {
+            event.completedEarly = parse(reader, parsers, errors);
+            event.outcome = CodeGenerationEvents.SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            event.outcome = CodeGenerationEvents.getOutcome(e);
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.target = target;
+                event.contentLength = parsers.values().stream()
+                        .mapToLong(CodeGenerationEventStreamParser::contentLength)
+                        .sum();
+                event.commit();
+            }
+        }
+    }
+
+    private static boolean parse(BufferedReader reader, Map<String, CodeGenerationEventStreamParser> parsers,
+                                 Map<String, String> errors) throws IOException {
+        Set<String> completedTargets = new HashSet<>();
+        boolean firstLine = true;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            if (firstLine) {
+                firstLine = false;
+                CodeGenerationEventStreamParser.checkForError(line);
+            }
+
+            if (!TARGET_EVENTS.contains(line)) {
+                continue;
+            }
+
+            String data = CodeGenerationEventStreamParser.readData(reader);
+            if (data == null) {
+                break;
+            }
+
+            JsonObject dataObj = JsonParser.parseString(data).getAsJsonObject();
+            String targetId = dataObj.get(TARGET_ID).getAsString();
+            CodeGenerationEventStreamParser parser = parsers.get(targetId);
+            if (parser == null || completedTargets.contains(targetId)) {
+                continue;
+            }
+
+            switch (line) {
+                case CONTENT_BLOCK_DELTA_EVENT -> parser.appendContent(dataObj.getAsJsonPrimitive(TEXT).getAsString());
+                case FUNCTIONS_EVENT -> parser.setFunctions(dataObj.getAsJsonArray(FUNCTIONS));
+                default -> errors.put(targetId, dataObj.get(ERROR_MESSAGE).getAsString());
+            }
+
+            if ((parser.isComplete() || errors.containsKey(targetId)) && completedTargets.add(targetId) &&
+                    completedTargets.size() == parsers.size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getDescription(List<TargetReport> reports) {
+        return reports.stream().map(TargetReport::description).collect(Collectors.joining(", "));
+    }
+
+    private static String getTargetId(int targetIndex) {
+        return String.valueOf(targetIndex);
+    }
+
+    private record PendingRepair(TargetReport report, JsonObject payload,
+                                 CompletableFuture<String> repairResponse) { }
+
+    private record SourceFileKey(String filePath, String content) {
+
+        static SourceFileKey from(JsonElement sourceFile) {
+            JsonObject sourceFileObj = sourceFile.getAsJsonObject();
+            return new SourceFileKey(sourceFileObj.get(FILE_PATH).getAsString(),
+                    sourceFileObj.get(CONTENT).getAsString());
+        }
+    }
+}
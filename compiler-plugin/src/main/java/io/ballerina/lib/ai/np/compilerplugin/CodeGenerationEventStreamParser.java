@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Incrementally parses the server-sent events stream returned by the code generation endpoint.
+ * <p>
+ * Events are handled as they arrive, and content deltas are appended to a single buffer. Parsing stops as soon as
+ * the generated code block has been closed and the functions event has been seen, so that the caller can close the
+ * stream and cancel the rest of the exchange.
+ *
+ * @since 0.4.3
+ */
+class CodeGenerationEventStreamParser {
+
+    static final String CONTENT_BLOCK_DELTA_EVENT = "event: content_block_delta";
+    static final String FUNCTIONS_EVENT = "event: functions";
+    static final String ERROR_MESSAGE = "error_message";
+    static final String TEXT = "text";
+    private static final String DATA_PREFIX = "data: ";
+    private static final String CODE_FENCE = "```";
+    private static final int CODE_BLOCK_FENCE_COUNT = 2;
+
+    private final StringBuilder content = new StringBuilder();
+    private JsonArray functions = null;
+    private int codeFenceCount = 0;
+    private int codeFenceSearchIndex = 0;
+
+    /**
+     * Reads events from the reader until the code block is complete or the stream ends.
+     *
+     * @param reader reader over the response body
+     * @return whether parsing stopped before the end of the stream
+     * @throws IOException if reading the stream fails
+     */
+    boolean parse(BufferedReader reader) throws IOException {
+        boolean firstLine = true;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            if (firstLine) {
+                firstLine = false;
+                checkForError(line);
+            }
+
+            if (CONTENT_BLOCK_DELTA_EVENT.equals(line)) {
+                String data = readData(reader);
+                if (data == null) {
+                    break;
+                }
+                appendContent(JsonParser.parseString(data).getAsJsonObject().getAsJsonPrimitive(TEXT).getAsString());
+            } else if (FUNCTIONS_EVENT.equals(line)) {
+                String data = readData(reader);
+                if (data == null) {
+                    break;
+                }
+                setFunctions(JsonParser.parseString(data).getAsJsonArray());
+            }
+
+            if (isComplete()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void appendContent(String text) {
+        this.content.append(text);
+        updateCodeFenceCount();
+    }
+
+    void setFunctions(JsonArray functions) {
+        this.functions = functions;
+    }
+
+    /**
+     * Returns whether the generated code block has been closed and the functions event has been seen.
+     *
+     * @return whether the rest of the stream can be ignored
+     */
+    boolean isComplete() {
+        return this.codeFenceCount >= CODE_BLOCK_FENCE_COUNT && this.functions != null;
+    }
+
+    String content() {
+        return this.content.toString();
+    }
+
+    int contentLength() {
+        return this.content.length();
+    }
+
+    JsonArray functions() {
+        return this.functions;
+    }
+
+    static void checkForError(String line) {
+        if (!line.startsWith("{")) {
+            return;
+        }
+
+        JsonObject jsonObject = JsonParser.parseString(line).getAsJsonObject();
+        if (jsonObject.has(ERROR_MESSAGE)) {
+            throw new RuntimeException(jsonObject.get(ERROR_MESSAGE).getAsString());
+        }
+    }
+
+    static String readData(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        return line.startsWith(DATA_PREFIX) ? line.substring(DATA_PREFIX.length()) : line;
+    }
+
+    private void updateCodeFenceCount() {
+        while (this.codeFenceCount < CODE_BLOCK_FENCE_COUNT) {
+            int index = this.content.indexOf(CODE_FENCE, this.codeFenceSearchIndex);
+            if (index == -1) {
+                // A fence may be split across deltas, so the last few characters are searched again.
+                this.codeFenceSearchIndex = Math.max(this.codeFenceSearchIndex,
+                        this.content.length() - (CODE_FENCE.length() - 1));
+                return;
+            }
+
+            this.codeFenceCount++;
+            this.codeFenceSearchIndex = index + CODE_FENCE.length();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events for the expensive operations of the plugin.
+ * <p>
+ * Events are only committed while a recording with them enabled is in progress, e.g., started with
+ * {@code -XX:StartFlightRecording}, and cost little more than an allocation otherwise. Each event records the
+ * target it was emitted for, the size of what was processed, and its outcome, which is {@value #SUCCESS} or the
+ * exception the operation failed with.
+ *
+ * @since 0.4.3
+ */
+final class CodeGenerationEvents {
+
+    static final String SUCCESS = "success";
+
+    private static final String CATEGORY = "Ballerina";
+    private static final String SUBCATEGORY = "Natural Programming";
+
+    private CodeGenerationEvents() {
+    }
+
+    static String getOutcome(Throwable throwable) {
+        return throwable.getMessage() == null ? throwable.getClass().getName() :
+                throwable.getClass().getName() + ": " + throwable.getMessage();
+    }
+
+    /**
+     * A request to the code generation service, until its response body is closed.
+     */
+    @Name("io.ballerina.np.CopilotRequest")
+    @Label("Copilot Request")
+    @Category({CATEGORY, SUBCATEGORY})
+    @Description("A request to the code generation service, including retries and reading the response")
+    static final class CopilotRequest extends Event {
+
+        @Label("Target")
+        String target;
+
+        @Label("Path")
+        String path;
+
+        @Label("Status Code")
+        int statusCode;
+
+        @Label("Bytes Sent")
+        @DataAmount
+        long bytesSent;
+
+        @Label("Bytes Received")
+        @DataAmount
+        long bytesReceived;
+
+        @Label("Outcome")
+        String outcome;
+    }
+
+    /**
+     * Parsing of the server-sent events streamed in response to a code generation request.
+     */
+    @Name("io.ballerina.np.EventStreamParsing")
+    @Label("Event Stream Parsing")
+    @Category({CATEGORY, SUBCATEGORY})
+    @Description("Parsing of the server-sent events streamed in response to a code generation request")
+    static final class EventStreamParsing extends Event {
+
+        @Label("Target")
+        String target;
+
+        @Label("Content Length")
+        @Description("Length of the content streamed for the target, in characters")
+        long contentLength;
+
+        @Label("Completed Early")
+        @Description("Whether the code was complete before the end of the stream")
+        boolean completedEarly;
+
+        @Label("Outcome")
+        String outcome;
+    }
+
+    /**
+     * Compilation of generated code to find the diagnostics to repair.
+     */
+    @Name("io.ballerina.np.Validation")
+    @Label("Generated Code Validation")
+    @Category({CATEGORY, SUBCATEGORY})
+    @Description("Compilation of generated code to find the diagnostics to repair")
+    static final class Validation extends Event {
+
+        @Label("Target")
+        String target;
+
+        @Label("Code Length")
+        @Description("Length of the validated code, in characters")
+        long codeLength;
+
+        @Label("Diagnostic Count")
+        int diagnosticCount;
+
+        @Label("Outcome")
+        String outcome;
+    }
+
+    /**
+     * Generation of the JSON schema of a type, with the type mapper for types not generated directly.
+     */
+    @Name("io.ballerina.np.TypeSchemaMapping")
+    @Label("Type Schema Mapping")
+    @Category({CATEGORY, SUBCATEGORY})
+    @Description("Generation of the JSON schema of a type, with the type mapper for types not generated directly")
+    static final class TypeSchemaMapping extends Event {
+
+        @Label("Target")
+        @Description("Name of the type")
+        String target;
+
+        @Label("Outcome")
+        String outcome;
+    }
+
+    /**
+     * Construction of the annotation expression of the JSON schema of a type.
+     */
+    @Name("io.ballerina.np.JsonSchemaSerialization")
+    @Label("JSON Schema Serialization")
+    @Category({CATEGORY, SUBCATEGORY})
+    @Description("Construction of the annotation expression of the JSON schema of a type")
+    static final class JsonSchemaSerialization extends Event {
+
+        @Label("Target")
+        @Description("Name of the type")
+        String target;
+
+        @Label("Schema Length")
+        @Description("Length of the JSON schema, in characters")
+        long schemaLength;
+
+        @Label("Outcome")
+        String outcome;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Options for compile-time code generation, configured via environment variables or system properties.
+ *
+ * @since 0.4.3
+ */
+final class CodeGenerationOptions {
+
+    private static final String BAL_CODEGEN_URL = "BAL_CODEGEN_URL";
+    private static final String BAL_CODEGEN_TOKEN = "BAL_CODEGEN_TOKEN";
+    private static final String BAL_CODEGEN_PARALLELISM = "BAL_CODEGEN_PARALLELISM";
+    private static final String BAL_CODEGEN_MAX_REPAIR_ROUNDS = "BAL_CODEGEN_MAX_REPAIR_ROUNDS";
+    private static final String BAL_CODEGEN_REPAIR_TIME_BUDGET_SECONDS = "BAL_CODEGEN_REPAIR_TIME_BUDGET_SECONDS";
+    private static final String BAL_CODEGEN_COMPRESS_REQUESTS = "BAL_CODEGEN_COMPRESS_REQUESTS";
+    private static final String BAL_CODEGEN_CONTEXT = "BAL_CODEGEN_CONTEXT";
+    private static final String BAL_CODEGEN_SESSION = "BAL_CODEGEN_SESSION";
+    private static final String BAL_CODEGEN_BATCH = "BAL_CODEGEN_BATCH";
+    private static final String BAL_CODEGEN_LOCK = "BAL_CODEGEN_LOCK";
+    private static final String BAL_CODEGEN_REQUEST_TIMEOUT_SECONDS = "BAL_CODEGEN_REQUEST_TIMEOUT_SECONDS";
+    private static final String BAL_CODEGEN_TIMEOUT_SECONDS = "BAL_CODEGEN_TIMEOUT_SECONDS";
+    private static final String BAL_CODEGEN_MAX_RETRIES = "BAL_CODEGEN_MAX_RETRIES";
+
+    private static final String FULL_CONTEXT = "full";
+    private static final String PRUNED_CONTEXT = "pruned";
+
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int DEFAULT_MAX_REPAIR_ROUNDS = 2;
+    private static final int DEFAULT_REQUEST_TIMEOUT_SECONDS = 300;
+    private static final int DEFAULT_MAX_RETRIES = 3;
+
+    final String copilotUrl;
+    final String copilotAccessToken;
+    final int parallelism;
+    final int maxRepairRounds;
+    // Empty if the time spent on a function is not limited.
+    final Optional<Duration> repairTimeBudget;
+    final boolean compressRequests;
+    // Whether only the parts of the module relevant to a function are sent when generating code for it.
+    final boolean pruneContext;
+    // Whether source files already sent in this build are referred to by the digest of their content.
+    final boolean useSession;
+    // Whether code is generated for the independent targets of a module with a single request.
+    final boolean batchRequests;
+    // How the code recorded in the np.lock file is used.
+    final LockMode lockMode;
+    // Maximum time for a single request, including reading the response.
+    final Duration requestTimeout;
+    // Empty if the total time spent on requests in a build is not limited.
+    final Optional<Duration> buildTimeout;
+    final int maxRetries;
+
+    private CodeGenerationOptions(String copilotUrl, String copilotAccessToken, int parallelism, int maxRepairRounds,
+                                  Optional<Duration> repairTimeBudget, boolean compressRequests,
+                                  boolean pruneContext, boolean useSession, boolean batchRequests,
+                                  LockMode lockMode, Duration requestTimeout, Optional<Duration> buildTimeout,
+                                  int maxRetries) {
+        this.copilotUrl = copilotUrl;
+        this.copilotAccessToken = copilotAccessToken;
+        this.parallelism = parallelism;
+        this.maxRepairRounds = maxRepairRounds;
+        this.repairTimeBudget = repairTimeBudget;
+        this.compressRequests = compressRequests;
+        this.pruneContext = pruneContext;
+        this.useSession = useSession;
+        this.batchRequests = batchRequests;
+        this.lockMode = lockMode;
+        this.requestTimeout = requestTimeout;
+        this.buildTimeout = buildTimeout;
+        this.maxRetries = maxRetries;
+    }
+
+    static CodeGenerationOptions fromEnvironment() {
+        String repairTimeBudget = getValue(BAL_CODEGEN_REPAIR_TIME_BUDGET_SECONDS);
+        String buildTimeout = getValue(BAL_CODEGEN_TIMEOUT_SECONDS);
+        return new CodeGenerationOptions(
+                getValue(BAL_CODEGEN_URL),
+                getValue(BAL_CODEGEN_TOKEN),
+                getIntValue(BAL_CODEGEN_PARALLELISM, DEFAULT_PARALLELISM, 1),
+                getIntValue(BAL_CODEGEN_MAX_REPAIR_ROUNDS, DEFAULT_MAX_REPAIR_ROUNDS, 0),
+                repairTimeBudget == null || repairTimeBudget.isBlank() ? Optional.empty() :
+                        Optional.of(Duration.ofSeconds(getIntValue(BAL_CODEGEN_REPAIR_TIME_BUDGET_SECONDS, 0, 1))),
+                Boolean.parseBoolean(getValue(BAL_CODEGEN_COMPRESS_REQUESTS)),
+                isPrunedContext(),
+                Boolean.parseBoolean(getValue(BAL_CODEGEN_SESSION)),
+                Boolean.parseBoolean(getValue(BAL_CODEGEN_BATCH)),
+                getLockMode(),
+                Duration.ofSeconds(
+                        getIntValue(BAL_CODEGEN_REQUEST_TIMEOUT_SECONDS, DEFAULT_REQUEST_TIMEOUT_SECONDS, 1)),
+                buildTimeout == null || buildTimeout.isBlank() ? Optional.empty() :
+                        Optional.of(Duration.ofSeconds(getIntValue(BAL_CODEGEN_TIMEOUT_SECONDS, 0, 1))),
+                getIntValue(BAL_CODEGEN_MAX_RETRIES, DEFAULT_MAX_RETRIES, 0));
+    }
+
+    private static boolean isPrunedContext() {
+        String value = getValue(BAL_CODEGEN_CONTEXT);
+        if (value == null || value.isBlank() || FULL_CONTEXT.equals(value.trim())) {
+            return false;
+        }
+
+        if (PRUNED_CONTEXT.equals(value.trim())) {
+            return true;
+        }
+        throw new RuntimeException(String.format("Invalid value '%s' for %s, expected '%s' or '%s'",
+                value, BAL_CODEGEN_CONTEXT, FULL_CONTEXT, PRUNED_CONTEXT));
+    }
+
+    private static LockMode getLockMode() {
+        String value = getValue(BAL_CODEGEN_LOCK);
+        if (value == null || value.isBlank()) {
+            return LockMode.OFF;
+        }
+
+        for (LockMode lockMode : LockMode.values()) {
+            if (lockMode.name().toLowerCase(Locale.ROOT).equals(value.trim())) {
+                return lockMode;
+            }
+        }
+        throw new RuntimeException(String.format("Invalid value '%s' for %s, expected one of %s", value,
+                BAL_CODEGEN_LOCK, Arrays.stream(LockMode.values())
+                        .map(lockMode -> "'" + lockMode.name().toLowerCase(Locale.ROOT) + "'")
+                        .toList()));
+    }
+
+    static String getValue(String variable) {
+        // A system property takes precedence over the environment variable of the same name.
+        String value = System.getProperty(variable);
+        return value != null ? value : System.getenv(variable);
+    }
+
+    private static int getIntValue(String variable, int defaultValue, int minValue) {
+        String value = getValue(variable);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            int intValue = Integer.parseInt(value.trim());
+            if (intValue >= minValue) {
+                return intValue;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new RuntimeException(String.format("Invalid value '%s' for %s, expected %s", value, variable,
+                minValue > 0 ? "a positive integer" : "a non-negative integer"));
+    }
+
+    /**
+     * How the code recorded in the np.lock file is used.
+     */
+    enum LockMode {
+        // The lock file is neither read nor written.
+        OFF,
+        // Recorded code is reused if the prompt is unchanged, and the lock file is updated with the accepted code.
+        UPDATE,
+        // Recorded code is used without generating code, targets without an up-to-date entry fail.
+        REPLAY,
+        // Same as replay, but the build fails before any code is used if an entry is missing or outdated.
+        VERIFY
+    }
+}
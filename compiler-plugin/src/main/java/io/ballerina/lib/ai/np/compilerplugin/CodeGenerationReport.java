@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.ballerina.lib.ai.np.compilerplugin.CopilotClient.RequestStats;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A machine-readable report of where the time of a build is spent on code generation, written to the target
+ * directory of the package.
+ * <p>
+ * Records, for each code generation target, the time spent generating the prompt, the requests sent for it, the
+ * time spent validating the generated code, and the repair rounds. A request sent for a batch of targets is
+ * recorded for each target of the batch. Also records the time spent generating the JSON schema of each type.
+ * Durations are reported in milliseconds. Can be updated concurrently.
+ *
+ * @since 0.4.3
+ */
+class CodeGenerationReport {
+
+    static final String CODE_GENERATION_REPORT_FILE = "np-codegen-report.json";
+    static final String SCHEMA_REPORT_FILE = "np-schema-report.json";
+
+    private static final int VERSION = 1;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    // Guarded by this.
+    private final List<TargetReport> targets = new ArrayList<>();
+    private final Map<String, SchemaReport> schemas = new LinkedHashMap<>();
+    private long validationWorkspaceNanos = -1;
+
+    /**
+     * Adds a code generation target to the report.
+     *
+     * @param module      name of the module of the target
+     * @param description description of the target
+     * @return the report of the target
+     */
+    synchronized TargetReport addTarget(String module, String description) {
+        TargetReport target = new TargetReport(module, description);
+        this.targets.add(target);
+        return target;
+    }
+
+    /**
+     * Records the time spent creating the copy of the package in which generated code is validated.
+     *
+     * @param nanos time spent, in nanoseconds
+     */
+    synchronized void recordValidationWorkspace(long nanos) {
+        this.validationWorkspaceNanos = nanos;
+    }
+
+    /**
+     * Records the time spent generating the JSON schema of a type.
+     *
+     * @param typeName name of the type
+     * @param nanos    time spent, in nanoseconds
+     */
+    synchronized void recordSchema(String typeName, long nanos) {
+        this.schemas.computeIfAbsent(typeName, name -> new SchemaReport()).record(nanos);
+    }
+
+    synchronized boolean isEmpty() {
+        return this.targets.isEmpty() && this.schemas.isEmpty();
+    }
+
+    /**
+     * Writes the report. A report that cannot be written does not fail the build.
+     *
+     * @param file file to write the report to
+     */
+    void write(Path file) {
+        try {
+            GeneratedSourceWriter.writeIfChanged(file, (GSON.toJson(toJson()) + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Shouldn't be a showstopper.
+        }
+    }
+
+    private synchronized JsonObject toJson() {
+        JsonObject report = new JsonObject();
+        report.addProperty("version", VERSION);
+        if (this.validationWorkspaceNanos >= 0) {
+            report.addProperty("validationWorkspaceMillis", toMillis(this.validationWorkspaceNanos));
+        }
+
+        if (!this.targets.isEmpty()) {
+            JsonArray targets = new JsonArray(this.targets.size());
+            this.targets.forEach(target -> targets.add(target.toJson()));
+            report.add("targets", targets);
+        }
+
+        if (!this.schemas.isEmpty()) {
+            JsonArray schemas = new JsonArray(this.schemas.size());
+            this.schemas.forEach((typeName, schema) -> schemas.add(schema.toJson(typeName)));
+            report.add("schemas", schemas);
+        }
+        return report;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / NANOS_PER_MILLI * 1000) / 1000.0;
+    }
+
+    /**
+     * Where the code of a target came from.
+     */
+    enum CodeSource {
+        // Generated in this build.
+        GENERATED,
+        // Taken from the generated code cache.
+        CACHED,
+        // Taken from the lock file.
+        LOCKED,
+        // Shared with an identical target.
+        SHARED
+    }
+
+    /**
+     * The report of a single code generation target.
+     */
+    static final class TargetReport {
+
+        private final String module;
+        private final String description;
+        // Guarded by this.
+        private final List<RequestStats> requests = new ArrayList<>();
+        private final List<Integer> diagnosticCounts = new ArrayList<>();
+        private CodeSource source = CodeSource.GENERATED;
+        private int batchSize = 1;
+        private long promptNanos = 0;
+        private long validationNanos = 0;
+        private int repairRounds = 0;
+        private String error = null;
+
+        private TargetReport(String module, String description) {
+            this.module = module;
+            this.description = description;
+        }
+
+        String description() {
+            return this.description;
+        }
+
+        synchronized void setSource(CodeSource source) {
+            this.source = source;
+        }
+
+        synchronized void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        synchronized void recordPrompt(long nanos) {
+            this.promptNanos += nanos;
+        }
+
+        synchronized void recordRequest(RequestStats request) {
+            this.requests.add(request);
+        }
+
+        /**
+         * Records a validation of the code generated for the target.
+         *
+         * @param nanos           time spent, in nanoseconds, including waiting for other validations
+         * @param diagnosticCount number of diagnostics reported for the code
+         */
+        synchronized void recordValidation(long nanos, int diagnosticCount) {
+            this.validationNanos += nanos;
+            this.diagnosticCounts.add(diagnosticCount);
+        }
+
+        synchronized void recordRepairRound() {
+            this.repairRounds++;
+        }
+
+        synchronized void recordFailure(String error) {
+            this.error = error;
+        }
+
+        private synchronized JsonObject toJson() {
+            JsonObject target = new JsonObject();
+            target.addProperty("module", this.module);
+            target.addProperty("target", this.description);
+            target.addProperty("source", this.source.name().toLowerCase(Locale.ROOT));
+            target.addProperty("status", this.error == null ? "succeeded" : "failed");
+            if (this.error != null) {
+                target.addProperty("error", this.error);
+            }
+            target.addProperty("batchSize", this.batchSize);
+            target.addProperty("promptMillis", toMillis(this.promptNanos));
+
+            long bytesSent = 0;
+            long bytesReceived = 0;
+            JsonArray requests = new JsonArray(this.requests.size());
+            for (RequestStats request : this.requests) {
+                bytesSent += request.bytesSent();
+                bytesReceived += request.bytesReceived();
+                JsonObject requestObj = new JsonObject();
+                requestObj.addProperty("path", request.path());
+                requestObj.addProperty("timeToFirstByteMillis", toMillis(request.timeToFirstByteNanos()));
+                requestObj.addProperty("streamMillis", toMillis(request.streamNanos()));
+                requestObj.addProperty("bytesSent", request.bytesSent());
+                requestObj.addProperty("bytesReceived", request.bytesReceived());
+                requests.add(requestObj);
+            }
+            target.add("requests", requests);
+            target.addProperty("bytesSent", bytesSent);
+            target.addProperty("bytesReceived", bytesReceived);
+
+            target.addProperty("validationMillis", toMillis(this.validationNanos));
+            target.addProperty("repairRounds", this.repairRounds);
+            JsonArray diagnosticCounts = new JsonArray(this.diagnosticCounts.size());
+            this.diagnosticCounts.forEach(diagnosticCounts::add);
+            target.add("diagnosticCounts", diagnosticCounts);
+            return target;
+        }
+    }
+
+    private static final class SchemaReport {
+
+        private int generations = 0;
+        private long nanos = 0;
+
+        private void record(long nanos) {
+            this.generations++;
+            this.nanos += nanos;
+        }
+
+        private JsonObject toJson(String typeName) {
+            JsonObject schema = new JsonObject();
+            schema.addProperty("type", typeName);
+            schema.addProperty("generations", this.generations);
+            schema.addProperty("millis", toMillis(this.nanos));
+            return schema;
+        }
+    }
+}
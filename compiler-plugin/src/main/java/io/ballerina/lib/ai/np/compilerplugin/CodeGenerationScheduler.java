@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs code generation tasks concurrently on virtual threads, with at most a configured number of tasks
+ * running at any given time.
+ * <p>
+ * A task is started only once all the tasks it depends on have completed, irrespective of whether they completed
+ * successfully. A task that waits on its dependencies does not hold a permit.
+ *
+ * @since 0.4.3
+ */
+class CodeGenerationScheduler implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+
+    CodeGenerationScheduler(int parallelism) {
+        this.permits = new Semaphore(parallelism);
+    }
+
+    <T> CompletableFuture<T> schedule(Supplier<T> task, List<? extends CompletableFuture<?>> dependencies) {
+        CompletableFuture<?>[] completions = dependencies.stream()
+                .map(dependency -> dependency.handle((result, throwable) -> null))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(completions)
+                .thenApplyAsync(ignored -> runWithPermit(task), this.executor);
+    }
+
+    private <T> T runWithPermit(Supplier<T> task) {
+        try {
+            this.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Code generation was interrupted");
+        }
+
+        try {
+            return task.get();
+        } finally {
+            this.permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+}
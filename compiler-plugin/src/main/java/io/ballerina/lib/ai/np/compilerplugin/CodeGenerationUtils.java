@@ -18,7 +18,6 @@
 package io.ballerina.lib.ai.np.compilerplugin;
 
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import io.ballerina.compiler.api.SemanticModel;
@@ -28,40 +27,29 @@ import io.ballerina.compiler.api.symbols.TypeSymbol;
 import io.ballerina.compiler.syntax.tree.ExpressionNode;
 import io.ballerina.compiler.syntax.tree.InterpolationNode;
 import io.ballerina.compiler.syntax.tree.LiteralValueToken;
-import io.ballerina.compiler.syntax.tree.ModulePartNode;
 import io.ballerina.compiler.syntax.tree.NaturalExpressionNode;
 import io.ballerina.compiler.syntax.tree.Node;
 import io.ballerina.compiler.syntax.tree.NodeList;
 import io.ballerina.compiler.syntax.tree.NodeParser;
-import io.ballerina.projects.BuildOptions;
-import io.ballerina.projects.DiagnosticResult;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationEvents.EventStreamParsing;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationEvents.Validation;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationReport.TargetReport;
 import io.ballerina.projects.Document;
-import io.ballerina.projects.DocumentId;
-import io.ballerina.projects.Module;
-import io.ballerina.projects.ModuleDescriptor;
-import io.ballerina.projects.PackageCompilation;
-import io.ballerina.projects.directory.BuildProject;
-import io.ballerina.projects.util.ProjectUtils;
+import io.ballerina.projects.ModuleId;
 import io.ballerina.tools.diagnostics.Diagnostic;
-import io.ballerina.tools.diagnostics.DiagnosticInfo;
-import io.ballerina.tools.diagnostics.DiagnosticSeverity;
 import io.ballerina.tools.text.LinePosition;
 import io.ballerina.tools.text.LineRange;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.ConnectException;
-import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static io.ballerina.lib.ai.np.compilerplugin.Commons.CONTENT;
 import static io.ballerina.lib.ai.np.compilerplugin.Commons.FILE_PATH;
@@ -73,23 +61,98 @@ import static io.ballerina.lib.ai.np.compilerplugin.Commons.FILE_PATH;
  */
 public class CodeGenerationUtils {
 
-    private static final String TEMP_DIR_PREFIX = "ballerina-np-codegen-diagnostics-dir-";
-    private static final String BALLERINA_TOML_FILE = "Ballerina.toml";
     private static final String TRIPLE_BACKTICK_BALLERINA = "```ballerina";
     private static final String TRIPLE_BACKTICK = "```";
 
-    static String generateCodeForFunction(String copilotUrl, String copilotAccessToken, String originalFuncName,
-                                          String generatedFuncName, String prompt, HttpClient client,
-                                          JsonArray sourceFiles, ModuleDescriptor moduleDescriptor,
-                                          String packageOrgName) {
+    static ValidatedCode generateCodeForFunction(CodeGenerationOptions options, String originalFuncName,
+                                                 String generatedFuncName, String prompt, CopilotClient client,
+                                                 JsonArray sourceFiles, ValidationWorkspace workspace,
+                                                 ModuleId moduleId, TargetReport report) {
+        long startTime = System.nanoTime();
+        String generatedPrompt = generatePrompt(originalFuncName, generatedFuncName, prompt);
+        report.recordPrompt(System.nanoTime() - startTime);
+        GeneratedCode generatedCode;
         try {
-            String generatedPrompt = generatePrompt(originalFuncName, generatedFuncName, prompt);
-            GeneratedCode generatedCode = generateCode(copilotUrl, copilotAccessToken, client, sourceFiles,
-                    generatedPrompt);
+            generatedCode = generateCode(client, sourceFiles, generatedPrompt, report);
+        } catch (URISyntaxException e) {
+            throw new RuntimeException("Failed to generate code, invalid URI for Copilot");
+        } catch (ConnectException e) {
+            throw new RuntimeException("Failed to connect to Copilot services");
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException("Failed to generate code: " + e.getMessage());
+        }
+        return repairGeneratedFunction(options, generatedFuncName, generatedPrompt, generatedCode, sourceFiles,
+                workspace, moduleId, payload -> getRepairResponse(client, payload, report), startTime, report);
+    }
+
+    static ValidatedCode generateCodeForNaturalExpression(CopilotClient client, JsonArray sourceFiles,
+                                                          String generatedPrompt, Document document,
+                                                          TargetReport report) {
+        GeneratedCode generatedCode;
+        try {
+            generatedCode = generateCode(client, sourceFiles, generatedPrompt, report);
+        } catch (URISyntaxException e) {
+            throw new RuntimeException("Failed to generate code, invalid URI for Copilot");
+        } catch (ConnectException e) {
+            throw new RuntimeException("Failed to connect to Copilot services");
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException("Failed to generate code: " + e.getMessage());
+        }
+        return repairGeneratedNaturalExpression(generatedCode, sourceFiles, generatedPrompt, document,
+                payload -> getRepairResponse(client, payload, report), report);
+    }
 
+    /**
+     * Generates code for all the targets of a batch with a single request.
+     *
+     * @param batch            batch to generate code for
+     * @param generatedPrompts prompt for each target
+     * @param sourceFiles      source files for each target
+     * @return the code generated for each target, completed exceptionally if code could not be generated for it
+     */
+    static List<CompletableFuture<GeneratedCode>> generateCodeInBatch(CodeGenerationBatch batch,
+                                                                      List<String> generatedPrompts,
+                                                                      List<JsonArray> sourceFiles) {
+        List<JsonObject> payloads = new ArrayList<>(generatedPrompts.size());
+        for (int i = 0; i < generatedPrompts.size(); i++) {
+            payloads.add(constructCodeGenerationPayload(generatedPrompts.get(i), sourceFiles.get(i)));
+        }
+
+        try {
+            return batch.generate(payloads);
+        } catch (URISyntaxException e) {
+            throw new RuntimeException("Failed to generate code, invalid URI for Copilot");
+        } catch (ConnectException e) {
+            throw new RuntimeException("Failed to connect to Copilot services");
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException("Failed to generate code: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Validates the code generated for a function and repairs it if necessary.
+     *
+     * @param options           code generation options
+     * @param generatedFuncName name of the generated function
+     * @param generatedPrompt   prompt the code was generated for
+     * @param generatedCode     generated code
+     * @param sourceFiles       source files the code was generated with
+     * @param workspace         workspace to validate the code in
+     * @param moduleId          module the code is generated for
+     * @param repairer          used to send repair requests
+     * @param startTime         time at which generation started, as returned by {@link System#nanoTime()}
+     * @param report            report of the function
+     * @return the generated code, repaired if necessary, and whether it compiles without errors
+     */
+    static ValidatedCode repairGeneratedFunction(CodeGenerationOptions options, String generatedFuncName,
+                                                 String generatedPrompt, GeneratedCode generatedCode,
+                                                 JsonArray sourceFiles, ValidationWorkspace workspace,
+                                                 ModuleId moduleId, CodeRepairer repairer, long startTime,
+                                                 TargetReport report) {
+        try {
             updateSourceFilesWithGeneratedContent(sourceFiles, generatedFuncName, generatedCode);
-            return repairCode(copilotUrl, copilotAccessToken, generatedFuncName, client, sourceFiles, moduleDescriptor,
-                    generatedPrompt, generatedCode, packageOrgName);
+            return repairCode(options, generatedFuncName, repairer, sourceFiles, workspace, moduleId,
+                    generatedPrompt, generatedCode, startTime, report);
         } catch (URISyntaxException e) {
             throw new RuntimeException("Failed to generate code, invalid URI for Copilot");
         } catch (ConnectException e) {
@@ -99,25 +162,46 @@ public class CodeGenerationUtils {
         }
     }
 
-    static ExpressionNode generateCodeForNaturalExpression(NaturalExpressionNode naturalExpressionNode,
-                                                           String copilotUrl, String copilotAccessToken,
-                                                           HttpClient client, JsonArray sourceFiles,
-                                                           SemanticModel semanticModel,
-                                                           TypeSymbol expectedType, Document document) {
+    /**
+     * Validates code generated earlier for a function, without repairing it.
+     *
+     * @param generatedFuncName name of the generated function
+     * @param code              generated code
+     * @param workspace         workspace to validate the code in
+     * @param moduleId          module the code is generated for
+     * @return whether the validation reported no errors
+     */
+    static boolean isValidFunction(String generatedFuncName, String code, ValidationWorkspace workspace,
+                                   ModuleId moduleId) {
+        return workspace.validate(moduleId, getGeneratedBalFileName(generatedFuncName), code).isEmpty();
+    }
+
+    /**
+     * Validates the code generated for a `const natural` expression and repairs it if necessary.
+     *
+     * @param generatedCode   generated code
+     * @param sourceFiles     source files the code was generated with
+     * @param generatedPrompt prompt the code was generated for
+     * @param document        document in which the expression is
+     * @param repairer        used to send repair requests
+     * @param report          report of the expression
+     * @return the generated code, repaired if necessary, and whether its last validation reported no errors
+     */
+    static ValidatedCode repairGeneratedNaturalExpression(GeneratedCode generatedCode, JsonArray sourceFiles,
+                                                          String generatedPrompt, Document document,
+                                                          CodeRepairer repairer, TargetReport report) {
         try {
-            String generatedPrompt = generatePrompt(naturalExpressionNode, expectedType, semanticModel);
-            GeneratedCode generatedCode = generateCode(copilotUrl, copilotAccessToken, client, sourceFiles,
-                    generatedPrompt);
-            ExpressionNode modifiedExpressionNode = NodeParser.parseExpression(generatedCode.code());
-            JsonArray diagnostics =
-                    collectConstNaturalExpressionDiagnostics(modifiedExpressionNode, generatedCode, document);
+            JsonArray diagnostics = validate(generatedCode, document, report);
             if (diagnostics.isEmpty()) {
-                return modifiedExpressionNode;
+                return new ValidatedCode(generatedCode.code(), true);
             }
-            String repairedExpression = repairIfDiagnosticsExistForConstNaturalExpression(
-                    copilotUrl, copilotAccessToken, client, sourceFiles,
+
+            report.recordRepairRound();
+            String repairedCode = repairIfDiagnosticsExistForConstNaturalExpression(repairer, sourceFiles,
                     generatedPrompt, generatedCode, diagnostics);
-            return NodeParser.parseExpression(repairedExpression);
+            // The repaired expression is validated again, but isn't repaired further.
+            diagnostics = validate(new GeneratedCode(repairedCode, generatedCode.functions()), document, report);
+            return new ValidatedCode(repairedCode, diagnostics.isEmpty());
         } catch (URISyntaxException e) {
             throw new RuntimeException("Failed to generate code, invalid URI for Copilot");
         } catch (ConnectException e) {
@@ -127,66 +211,101 @@ public class CodeGenerationUtils {
         }
     }
 
-    private static GeneratedCode generateCode(String copilotUrl, String copilotAccessToken, HttpClient client,
-                                              JsonArray sourceFiles, String generatedPrompt)
+    private static GeneratedCode generateCode(CopilotClient client, JsonArray sourceFiles, String generatedPrompt,
+                                              TargetReport report)
             throws URISyntaxException, IOException, InterruptedException {
         JsonObject codeGenerationPayload = constructCodeGenerationPayload(generatedPrompt, sourceFiles);
-        HttpRequest codeGenerationRequest = HttpRequest.newBuilder()
-                .uri(new URI(copilotUrl + "/code"))
-                .header("Authorization", "Bearer " + copilotAccessToken)
-                .POST(HttpRequest.BodyPublishers.ofString(codeGenerationPayload.toString())).build();
-        Stream<String> lines = client.send(codeGenerationRequest, HttpResponse.BodyHandlers.ofLines()).body();
-        return extractGeneratedFunctionCode(lines);
+        return extractGeneratedFunctionCode(
+                client.generateCode(codeGenerationPayload, report.description(), report::recordRequest),
+                report.description());
     }
 
-    private static String repairCode(String copilotUrl, String copilotAccessToken, String generatedFuncName,
-                                     HttpClient client, JsonArray sourceFiles, ModuleDescriptor moduleDescriptor,
-                                     String generatedPrompt, GeneratedCode generatedCode, String packageOrgName)
+    private static ValidatedCode repairCode(CodeGenerationOptions options, String generatedFuncName,
+                                            CodeRepairer repairer, JsonArray sourceFiles, ValidationWorkspace workspace,
+                                            ModuleId moduleId, String generatedPrompt, GeneratedCode generatedCode,
+                                            long startTime, TargetReport report)
             throws IOException, URISyntaxException, InterruptedException {
-        String generatedFunctionSrc = repairIfDiagnosticsExist(copilotUrl, copilotAccessToken, client, sourceFiles,
-                moduleDescriptor, generatedFuncName, generatedPrompt, generatedCode, packageOrgName);
-        return repairIfDiagnosticsExist(copilotUrl, copilotAccessToken, client, sourceFiles, moduleDescriptor,
-                generatedFuncName, generatedPrompt,
-                new GeneratedCode(generatedFunctionSrc, generatedCode.functions), packageOrgName);
-    }
-
-    private static Optional<Document> findDocumentByName(Module module, String generateFuncName) {
-        String documentName = getGeneratedBalFileName(generateFuncName);
-        for (DocumentId docId : module.documentIds()) {
-            Document doc = module.document(docId);
-            if (doc.name().contains(documentName)) {
-                return Optional.of(doc);
+        String documentName = getGeneratedBalFileName(generatedFuncName);
+        String code = generatedCode.code;
+        JsonArray diagnostics = validate(workspace, moduleId, documentName, code, report);
+
+        String bestCode = code;
+        int bestDiagnosticCount = diagnostics.size();
+        for (int round = 0; round < options.maxRepairRounds && !diagnostics.isEmpty(); round++) {
+            if (isTimeBudgetExceeded(options, startTime)) {
+                break;
+            }
+
+            report.recordRepairRound();
+            String repairResponse = repairCode(repairer, generatedFuncName, sourceFiles, generatedPrompt,
+                    new GeneratedCode(code, generatedCode.functions), diagnostics);
+            if (!hasBallerinaCodeSnippet(repairResponse)) {
+                break;
             }
+
+            code = extractBallerinaCodeSnippet(repairResponse);
+            sourceFiles.get(sourceFiles.size() - 1).getAsJsonObject().addProperty(CONTENT, code);
+            diagnostics = validate(workspace, moduleId, documentName, code, report);
+            if (diagnostics.size() > bestDiagnosticCount) {
+                // The repair made things worse, further rounds are unlikely to recover.
+                break;
+            }
+
+            bestCode = code;
+            bestDiagnosticCount = diagnostics.size();
         }
-        return Optional.empty();
+
+        if (!bestCode.equals(code)) {
+            // Code generated for other functions is validated against the code used for this function.
+            workspace.update(moduleId, documentName, bestCode);
+        }
+        return new ValidatedCode(bestCode, bestDiagnosticCount == 0);
     }
 
-    private static String repairIfDiagnosticsExist(String copilotUrl, String copilotAccessToken, HttpClient client,
-                                                   JsonArray sourceFiles, ModuleDescriptor moduleDescriptor,
-                                                   String generatedFuncName, String generatedPrompt,
-                                                   GeneratedCode generatedCode, String packageOrgName)
-            throws IOException, URISyntaxException, InterruptedException {
-        ModulePartNode modulePartNode = NodeParser.parseModulePart(generatedCode.code);
-
-        BuildProject project = createProject(sourceFiles, moduleDescriptor);
-        Optional<JsonArray> compilerDiagnostics = getDiagnostics(project);
-        Module module = project.currentPackage().module(
-                project.currentPackage().modules().iterator().next().moduleId());
-        JsonArray codeGeneratorDiagnostics = new AllowedConstructValidator(
-                    project.currentPackage().getCompilation().getSemanticModel(module.moduleId()),
-                    findDocumentByName(module, generatedFuncName), packageOrgName
-                ).checkCodeGenerationDiagnostics(modulePartNode);
-        JsonArray allDiagnostics = mergeDiagnostics(compilerDiagnostics,
-                codeGeneratorDiagnostics);
-
-        if (allDiagnostics.isEmpty()) {
-            return generatedCode.code;
+    private static JsonArray validate(ValidationWorkspace workspace, ModuleId moduleId, String documentName,
+                                      String code, TargetReport report) {
+        Validation event = new Validation();
+        event.begin();
+        long startTime = System.nanoTime();
+        try {
+            JsonArray diagnostics = workspace.validate(moduleId, documentName, code);
+            report.recordValidation(System.nanoTime() - startTime, diagnostics.size());
+            event.diagnosticCount = diagnostics.size();
+            event.outcome = CodeGenerationEvents.SUCCESS;
+            return diagnostics;
+        } catch (RuntimeException e) {
+            event.outcome = CodeGenerationEvents.getOutcome(e);
+            throw e;
+        } finally {
+            commit(event, report, code);
         }
+    }
 
-        String repairResponse = repairCode(copilotUrl, copilotAccessToken, generatedFuncName, client, sourceFiles,
-                generatedPrompt, generatedCode, allDiagnostics);
+    private static JsonArray validate(GeneratedCode generatedCode, Document document, TargetReport report) {
+        Validation event = new Validation();
+        event.begin();
+        long startTime = System.nanoTime();
+        JsonArray diagnostics = collectConstNaturalExpressionDiagnostics(
+                NodeParser.parseExpression(generatedCode.code()), generatedCode, document);
+        report.recordValidation(System.nanoTime() - startTime, diagnostics.size());
+        event.diagnosticCount = diagnostics.size();
+        event.outcome = CodeGenerationEvents.SUCCESS;
+        commit(event, report, generatedCode.code());
+        return diagnostics;
+    }
 
-        return updateResourcesWithCodeSnippet(repairResponse, generatedCode, sourceFiles);
+    private static void commit(Validation event, TargetReport report, String code) {
+        if (event.shouldCommit()) {
+            event.target = report.description();
+            event.codeLength = code.length();
+            event.commit();
+        }
+    }
+
+    private static boolean isTimeBudgetExceeded(CodeGenerationOptions options, long startTime) {
+        return options.repairTimeBudget
+                .map(timeBudget -> System.nanoTime() - startTime >= timeBudget.toNanos())
+                .orElse(false);
     }
 
     private static JsonArray collectConstNaturalExpressionDiagnostics(ExpressionNode expNode,
@@ -215,174 +334,68 @@ public class CodeGenerationUtils {
                 document.name(), startLine.line(), startLine.offset(), endLine.line(), endLine.offset(), message);
     }
 
-    private static String repairIfDiagnosticsExistForConstNaturalExpression(String copilotUrl,
-                                   String copilotAccessToken, HttpClient client, JsonArray sourceFiles,
-                                   String generatedPrompt, GeneratedCode generatedCode, JsonArray diagnostics)
+    private static String repairIfDiagnosticsExistForConstNaturalExpression(CodeRepairer repairer,
+                                   JsonArray sourceFiles, String generatedPrompt, GeneratedCode generatedCode,
+                                   JsonArray diagnostics)
             throws IOException, URISyntaxException, InterruptedException {
-        String repairResponse = repairCodeForConstNaturalExpressions(
-                copilotUrl, copilotAccessToken, client, sourceFiles,
-                generatedPrompt, generatedCode, diagnostics);
-
-        return updateResourcesWithCodeSnippet(repairResponse, generatedCode, sourceFiles);
-    }
-
-    private static String updateResourcesWithCodeSnippet(String repairResponse, GeneratedCode generatedCode,
-                                                         JsonArray sourceFiles) {
-        if (hasBallerinaCodeSnippet(repairResponse)) {
-            String generatedFunctionSrc = extractBallerinaCodeSnippet(repairResponse);
-            sourceFiles.get(sourceFiles.size() - 1).getAsJsonObject().addProperty(CONTENT, generatedFunctionSrc);
-            return generatedFunctionSrc;
-        }
-        return generatedCode.code;
-    }
+        String repairResponse = repairCodeForConstNaturalExpressions(repairer, sourceFiles, generatedPrompt,
+                generatedCode, diagnostics);
 
-    private static JsonArray mergeDiagnostics(Optional<JsonArray> compilerDiagnostics,
-                                              JsonArray validationDiagnostics) {
-        JsonArray merged = new JsonArray();
-        compilerDiagnostics.ifPresent(merged::addAll);
-        merged.addAll(validationDiagnostics);
-        return merged;
+        // The source files are the module snapshot shared by all the expressions, and are left as is.
+        return hasBallerinaCodeSnippet(repairResponse) ?
+                extractBallerinaCodeSnippet(repairResponse) : generatedCode.code;
     }
 
-    private static String repairCode(String copilotUrl, String copilotAccessToken, String generatedFuncName,
-                                     HttpClient client, JsonArray updatedSourceFiles, String generatedPrompt,
-                                     GeneratedCode generatedCode, JsonArray diagnostics)
+    private static String repairCode(CodeRepairer repairer, String generatedFuncName, JsonArray updatedSourceFiles,
+                                     String generatedPrompt, GeneratedCode generatedCode, JsonArray diagnostics)
             throws URISyntaxException, IOException, InterruptedException {
         JsonObject codeReparationPayload =
                 constructCodeReparationPayload(generatedPrompt, generatedFuncName, generatedCode,
                         updatedSourceFiles, diagnostics);
-        return getRepairResponse(copilotUrl, copilotAccessToken, client, codeReparationPayload);
+        return repairer.repair(codeReparationPayload);
     }
 
-    private static String repairCodeForConstNaturalExpressions(String copilotUrl, String copilotAccessToken,
-                                     HttpClient client, JsonArray updatedSourceFiles, String generatedPrompt,
-                                     GeneratedCode generatedCode, JsonArray diagnostics)
+    private static String repairCodeForConstNaturalExpressions(CodeRepairer repairer, JsonArray updatedSourceFiles,
+                                                               String generatedPrompt, GeneratedCode generatedCode,
+                                                               JsonArray diagnostics)
             throws URISyntaxException, IOException, InterruptedException {
         JsonObject codeReparationPayload =
                 constructCodeReparationPayloadForConstNaturalExpressions(generatedPrompt, generatedCode,
                         updatedSourceFiles, diagnostics);
-        return getRepairResponse(copilotUrl, copilotAccessToken, client, codeReparationPayload);
+        return repairer.repair(codeReparationPayload);
     }
 
-    private static String getRepairResponse(String copilotUrl, String copilotAccessToken, HttpClient client,
-                                            JsonObject codeReparationPayload)
+    private static String getRepairResponse(CopilotClient client, JsonObject codeReparationPayload,
+                                            TargetReport report)
             throws URISyntaxException, IOException, InterruptedException {
-        HttpRequest codeReparationRequest = HttpRequest.newBuilder()
-                .uri(new URI(copilotUrl + "/code/repair"))
-                .header("Authorization", "Bearer " + copilotAccessToken)
-                .POST(HttpRequest.BodyPublishers.ofString(codeReparationPayload.toString())).build();
-        String body = client.send(codeReparationRequest, HttpResponse.BodyHandlers.ofString()).body();
+        String body = client.repairCode(codeReparationPayload, report.description(), report::recordRequest);
         return JsonParser.parseString(body).getAsJsonObject()
                 .getAsJsonPrimitive("repairResponse").getAsString();
     }
 
-    private static Optional<JsonArray> getDiagnostics(BuildProject project) {
-        JsonObject diagnosticObj;
-        PackageCompilation compilation = project.currentPackage().getCompilation();
-        DiagnosticResult diagnosticResult = compilation.diagnosticResult();
-
-        if (diagnosticResult.errorCount() == 0) {
-            return Optional.empty();
-        }
-
-        JsonArray diagnostics = new JsonArray();
-        for (Diagnostic diagnostic : diagnosticResult.diagnostics()) {
-            DiagnosticInfo diagnosticInfo = diagnostic.diagnosticInfo();
-            if (diagnosticInfo.severity() != DiagnosticSeverity.ERROR) {
-                continue;
+    static GeneratedCode extractGeneratedFunctionCode(InputStream body, String target) throws IOException {
+        EventStreamParsing event = new EventStreamParsing();
+        event.begin();
+        CodeGenerationEventStreamParser parser = new CodeGenerationEventStreamParser();
+        // Closing the body once the code block is complete cancels the rest of the exchange.
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            event.completedEarly = parser.parse(reader);
+            event.outcome = CodeGenerationEvents.SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            event.outcome = CodeGenerationEvents.getOutcome(e);
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.target = target;
+                event.contentLength = parser.contentLength();
+                event.commit();
             }
-
-            diagnosticObj = new JsonObject();
-            diagnosticObj.addProperty("message", diagnostic.toString());
-            diagnostics.add(diagnosticObj);
-        }
-
-        return Optional.of(diagnostics);
-    }
-
-    private static BuildProject createProject(JsonArray sourceFiles, ModuleDescriptor moduleDescriptor)
-            throws IOException {
-        Path tempProjectDir = Files.createTempDirectory(TEMP_DIR_PREFIX + System.currentTimeMillis());
-        tempProjectDir.toFile().deleteOnExit();
-
-        Path tempGeneratedDir = Files.createDirectory(tempProjectDir.resolve("generated"));
-        tempGeneratedDir.toFile().deleteOnExit();
-
-        for (JsonElement sourceFile : sourceFiles) {
-            JsonObject sourceFileObj = sourceFile.getAsJsonObject();
-            File file = Files.createFile(
-                    tempProjectDir.resolve(Path.of(sourceFileObj.get(FILE_PATH).getAsString()))).toFile();
-            file.deleteOnExit();
-
-            try (FileWriter fileWriter = new FileWriter(file, StandardCharsets.UTF_8)) {
-                fileWriter.write(sourceFileObj.get(CONTENT).getAsString());
-            }
-        }
-
-        Path ballerinaTomlPath = tempProjectDir.resolve(BALLERINA_TOML_FILE);
-        File balTomlFile = Files.createFile(ballerinaTomlPath).toFile();
-        balTomlFile.deleteOnExit();
-
-        try (FileWriter fileWriter = new FileWriter(balTomlFile, StandardCharsets.UTF_8)) {
-            fileWriter.write(String.format("""
-                [package]
-                org = "%s"
-                name = "%s"
-                version = "%s"
-                """,
-                    moduleDescriptor.org().value(),
-                    moduleDescriptor.packageName().value(),
-                    moduleDescriptor.version().value()));
         }
-
-        BuildOptions buildOptions = BuildOptions.builder()
-                .setExperimental(true)
-                .targetDir(ProjectUtils.getTemporaryTargetPath())
-                .build();
-        return BuildProject.load(tempProjectDir, buildOptions);
+        return getGeneratedCode(parser);
     }
 
-    private static GeneratedCode extractGeneratedFunctionCode(Stream<String> lines) {
-        String[] linesArr = lines.toArray(String[]::new);
-        int length = linesArr.length;
-
-        if (length == 1) {
-            JsonObject jsonObject = JsonParser.parseString(linesArr[0]).getAsJsonObject();
-            if (jsonObject.has("error_message")) {
-                throw new RuntimeException(jsonObject.get("error_message").getAsString());
-            }
-        }
-
-        StringBuilder responseBody = new StringBuilder();
-        JsonArray functions = null;
-
-        int index = 0;
-        while (index < length) {
-            String line = linesArr[index];
-
-            if (line.isBlank()) {
-                index++;
-                continue;
-            }
-
-            if ("event: content_block_delta".equals(line)) {
-                line = linesArr[++index].substring(6);
-                responseBody.append(JsonParser.parseString(line).getAsJsonObject()
-                        .getAsJsonPrimitive("text").getAsString());
-                continue;
-            }
-
-            if ("event: functions".equals(line)) {
-                line = linesArr[++index].substring(6);
-                functions = JsonParser.parseString(line).getAsJsonArray();
-                continue;
-            }
-
-            index++;
-        }
-
-        String responseBodyString = responseBody.toString();
-        return new GeneratedCode(extractBallerinaCodeSnippet(responseBodyString), functions);
+    static GeneratedCode getGeneratedCode(CodeGenerationEventStreamParser parser) {
+        return new GeneratedCode(extractBallerinaCodeSnippet(parser.content()), parser.functions());
     }
 
     private static boolean hasBallerinaCodeSnippet(String responseBodyString) {
@@ -404,16 +417,33 @@ public class CodeGenerationUtils {
                 responseBodyString.substring(startIndex + startDelimLength, endIndex).trim();
     }
 
-    private record GeneratedCode(String code, JsonArray functions) { }
+    record GeneratedCode(String code, JsonArray functions) { }
+
+    /**
+     * Sends code repair requests.
+     */
+    @FunctionalInterface
+    interface CodeRepairer {
+
+        /**
+         * Sends a code repair request.
+         *
+         * @param payload code repair payload
+         * @return the repair response
+         */
+        String repair(JsonObject payload) throws URISyntaxException, IOException, InterruptedException;
+    }
+
+    record ValidatedCode(String code, boolean isValid) { }
 
-    private static JsonObject constructCodeGenerationPayload(String prompt, JsonArray sourceFiles) {
+    static JsonObject constructCodeGenerationPayload(String prompt, JsonArray sourceFiles) {
         JsonObject payload = new JsonObject();
         payload.addProperty("usecase", prompt);
         payload.add("sourceFiles", sourceFiles);
         return payload;
     }
 
-    private static String generatePrompt(String originalFuncName, String generatedFuncName, String prompt) {
+    static String generatePrompt(String originalFuncName, String generatedFuncName, String prompt) {
         return String.format("""
                         An `external` function with the `@natural:code` Ballerina annotation needs to be replaced at
                         compile-time with the code necessary to achieve the requirement specified as the `prompt`
@@ -439,8 +469,8 @@ public class CodeGenerationUtils {
                 originalFuncName, prompt, generatedFuncName, generatedFuncName, originalFuncName);
     }
 
-    private static String generatePrompt(NaturalExpressionNode naturalExpressionNode,
-                                         TypeSymbol expectedType, SemanticModel semanticModel) {
+    static String generatePrompt(NaturalExpressionNode naturalExpressionNode,
+                                 TypeSymbol expectedType, SemanticModel semanticModel) {
         NodeList<Node> userPromptContent = naturalExpressionNode.prompt();
         StringBuilder sb = new StringBuilder(String.format("""
                 Generate a value expression to satisfy the following requirement using only Ballerina literals and
@@ -483,10 +513,14 @@ public class CodeGenerationUtils {
 
     private static void updateSourceFilesWithGeneratedContent(JsonArray sourceFiles, String generatedFuncName,
                                                               GeneratedCode generatedCode) {
+        sourceFiles.add(createGeneratedSourceFile(generatedFuncName, generatedCode.code));
+    }
+
+    static JsonObject createGeneratedSourceFile(String generatedFuncName, String code) {
         JsonObject sourceFile = new JsonObject();
         sourceFile.addProperty(FILE_PATH, String.format("generated/functions_%s.bal", generatedFuncName));
-        sourceFile.addProperty(CONTENT, generatedCode.code);
-        sourceFiles.add(sourceFile);
+        sourceFile.addProperty(CONTENT, code);
+        return sourceFile;
     }
 
     private static String getGeneratedBalFileName(String generatedFuncName) {
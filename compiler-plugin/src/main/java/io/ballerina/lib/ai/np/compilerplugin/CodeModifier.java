@@ -20,7 +20,9 @@ package io.ballerina.lib.ai.np.compilerplugin;
 
 import io.ballerina.compiler.syntax.tree.SyntaxKind;
 import io.ballerina.openapi.service.mapper.type.TypeMapper;
+import io.ballerina.openapi.service.mapper.type.TypeMapperImpl;
 import io.ballerina.projects.plugins.CodeModifierContext;
+import io.ballerina.projects.plugins.SyntaxNodeAnalysisContext;
 
 import java.util.List;
 
@@ -43,6 +45,21 @@ public class CodeModifier extends io.ballerina.projects.plugins.CodeModifier {
 
     static final class AnalysisData {
         boolean analysisTaskErrored = false;
-        TypeMapper typeMapper;
+        // The type mapper is only needed for types whose JSON schemas are not generated directly, so it is created
+        // the first time it is needed.
+        private SyntaxNodeAnalysisContext typeMapperContext;
+        private TypeMapper typeMapper;
+
+        void setTypeMapperContext(SyntaxNodeAnalysisContext typeMapperContext) {
+            this.typeMapperContext = typeMapperContext;
+            this.typeMapper = null;
+        }
+
+        TypeMapper getTypeMapper() {
+            if (this.typeMapper == null) {
+                this.typeMapper = new TypeMapperImpl(this.typeMapperContext);
+            }
+            return this.typeMapper;
+        }
     }
 }
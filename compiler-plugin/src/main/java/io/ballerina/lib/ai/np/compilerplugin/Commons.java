@@ -24,6 +24,14 @@ import io.ballerina.compiler.syntax.tree.AnnotationNode;
 import io.ballerina.compiler.syntax.tree.Node;
 import io.ballerina.compiler.syntax.tree.QualifiedNameReferenceNode;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
 /**
  * Class containing common constants and functionality.
  *
@@ -42,6 +50,14 @@ class Commons {
     static final String FILE_PATH = "filePath";
     static final String CONTENT = "content";
 
+    private static final String PLUGIN_PROPERTIES_FILE = "/compiler-plugin.properties";
+    private static final String VERSION = "version";
+    private static final String UNKNOWN_VERSION = "unknown";
+
+    static final String PLUGIN_VERSION = loadPluginVersion();
+
+    private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W+");
+
     static boolean isCodeAnnotation(AnnotationNode annotationNode, SemanticModel semanticModel) {
         Node node = annotationNode.annotReference();
         if (!(node instanceof QualifiedNameReferenceNode qualifiedNameReferenceNode) ||
@@ -56,4 +72,29 @@ class Commons {
         ModuleID moduleId = moduleSymbol.id();
         return BALLERINA_ORG_NAME.equals(moduleId.orgName()) && "lang.natural".equals(moduleId.moduleName());
     }
+
+    /**
+     * Returns the words of a piece of text, e.g., a prompt, so that the names mentioned in it can be looked up
+     * without searching the text for each name.
+     *
+     * @param text text to split into words
+     * @return the words of the text
+     */
+    static Set<String> getWords(String text) {
+        return new HashSet<>(Arrays.asList(NON_WORD_CHARACTERS.split(text)));
+    }
+
+    private static String loadPluginVersion() {
+        try (InputStream inputStream = Commons.class.getResourceAsStream(PLUGIN_PROPERTIES_FILE)) {
+            if (inputStream == null) {
+                return UNKNOWN_VERSION;
+            }
+
+            Properties properties = new Properties();
+            properties.load(inputStream);
+            return properties.getProperty(VERSION, UNKNOWN_VERSION);
+        } catch (IOException e) {
+            return UNKNOWN_VERSION;
+        }
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes a JSON value, made up of maps, collections, strings, numbers, and booleans, as compact JSON in a single
+ * pass.
+ * <p>
+ * The output is parsed as a Ballerina expression, so control characters in strings that have no escape sequence
+ * common to JSON and Ballerina are escaped in the Ballerina form. Entries of maps with {@code null} values are
+ * omitted, as with the mapper used for OpenAPI schemas.
+ *
+ * @since 0.4.3
+ */
+final class CompactJsonWriter {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private CompactJsonWriter() {
+    }
+
+    static String write(Object value) {
+        StringBuilder json = new StringBuilder();
+        write(json, value);
+        return json.toString();
+    }
+
+    private static void write(StringBuilder json, Object value) {
+        switch (value) {
+            case null -> json.append("null");
+            case Map<?, ?> map -> {
+                json.append('{');
+                boolean first = true;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (entry.getValue() == null) {
+                        continue;
+                    }
+
+                    if (!first) {
+                        json.append(',');
+                    }
+                    first = false;
+                    writeString(json, String.valueOf(entry.getKey()));
+                    json.append(':');
+                    write(json, entry.getValue());
+                }
+                json.append('}');
+            }
+            case Collection<?> collection -> {
+                json.append('[');
+                boolean first = true;
+                for (Object member : collection) {
+                    if (!first) {
+                        json.append(',');
+                    }
+                    first = false;
+                    write(json, member);
+                }
+                json.append(']');
+            }
+            case Number number -> json.append(number);
+            case Boolean bool -> json.append(bool);
+            default -> writeString(json, value.toString());
+        }
+    }
+
+    private static void writeString(StringBuilder json, String value) {
+        json.append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\') {
+                continue;
+            }
+
+            // Characters that need no escaping are appended in runs.
+            json.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> json.append("\\u{").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xf]).append('}');
+            }
+        }
+        json.append(value, start, value.length()).append('"');
+    }
+}
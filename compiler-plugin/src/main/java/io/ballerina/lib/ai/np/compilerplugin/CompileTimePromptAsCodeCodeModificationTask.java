@@ -26,6 +26,7 @@ import io.ballerina.compiler.api.symbols.AnnotationAttachmentSymbol;
 import io.ballerina.compiler.api.symbols.AnnotationSymbol;
 import io.ballerina.compiler.api.symbols.ExternalFunctionSymbol;
 import io.ballerina.compiler.api.symbols.ModuleSymbol;
+import io.ballerina.compiler.api.symbols.TypeSymbol;
 import io.ballerina.compiler.api.values.ConstantValue;
 import io.ballerina.compiler.syntax.tree.BaseNodeModifier;
 import io.ballerina.compiler.syntax.tree.DefaultableParameterNode;
@@ -40,14 +41,22 @@ import io.ballerina.compiler.syntax.tree.IncludedRecordParameterNode;
 import io.ballerina.compiler.syntax.tree.ModuleMemberDeclarationNode;
 import io.ballerina.compiler.syntax.tree.ModulePartNode;
 import io.ballerina.compiler.syntax.tree.NaturalExpressionNode;
+import io.ballerina.compiler.syntax.tree.Node;
 import io.ballerina.compiler.syntax.tree.NodeFactory;
 import io.ballerina.compiler.syntax.tree.NodeParser;
+import io.ballerina.compiler.syntax.tree.NodeVisitor;
 import io.ballerina.compiler.syntax.tree.ParameterNode;
 import io.ballerina.compiler.syntax.tree.RequiredParameterNode;
 import io.ballerina.compiler.syntax.tree.RestParameterNode;
 import io.ballerina.compiler.syntax.tree.SeparatedNodeList;
 import io.ballerina.compiler.syntax.tree.SyntaxKind;
 import io.ballerina.compiler.syntax.tree.Token;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationOptions.LockMode;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationReport.CodeSource;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationReport.TargetReport;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.CodeRepairer;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.GeneratedCode;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.ValidatedCode;
 import io.ballerina.projects.Document;
 import io.ballerina.projects.DocumentId;
 import io.ballerina.projects.Module;
@@ -56,35 +65,54 @@ import io.ballerina.projects.Package;
 import io.ballerina.projects.ProjectKind;
 import io.ballerina.projects.plugins.ModifierTask;
 import io.ballerina.projects.plugins.SourceModifierContext;
+import io.ballerina.tools.text.LinePosition;
 import io.ballerina.tools.text.TextDocument;
 import io.ballerina.tools.text.TextDocuments;
-import org.ballerinalang.formatter.core.Formatter;
-import org.ballerinalang.formatter.core.FormatterException;
 
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.http.HttpClient;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import static io.ballerina.compiler.syntax.tree.AbstractNodeFactory.createToken;
+import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.createGeneratedSourceFile;
 import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.generateCodeForFunction;
 import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.generateCodeForNaturalExpression;
+import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.generateCodeInBatch;
+import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.generatePrompt;
+import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.isValidFunction;
+import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.repairGeneratedFunction;
+import static io.ballerina.lib.ai.np.compilerplugin.CodeGenerationUtils.repairGeneratedNaturalExpression;
 import static io.ballerina.lib.ai.np.compilerplugin.Commons.BAL_EXT;
 import static io.ballerina.lib.ai.np.compilerplugin.Commons.CODE_ANNOTATION;
 import static io.ballerina.lib.ai.np.compilerplugin.Commons.CONTENT;
 import static io.ballerina.lib.ai.np.compilerplugin.Commons.FILE_PATH;
+import static io.ballerina.lib.ai.np.compilerplugin.Commons.PLUGIN_VERSION;
+import static io.ballerina.lib.ai.np.compilerplugin.Commons.getWords;
 import static io.ballerina.lib.ai.np.compilerplugin.Commons.isCodeAnnotation;
 import static io.ballerina.lib.ai.np.compilerplugin.Commons.isLangNaturalModule;
+import static io.ballerina.projects.util.ProjectConstants.TARGET_DIR_NAME;
 
 /**
  * Code modification task to replace generate code based on a prompt and replace.
+ * <p>
+ * Code is generated for all the `@natural:code` functions and `const natural` expressions in the package
+ * concurrently, before the generated code is spliced into the syntax trees.
  *
  * @since 0.4.0
  */
@@ -96,12 +124,9 @@ public class CompileTimePromptAsCodeCodeModificationTask implements ModifierTask
     private static final String GENERATED_FUNCTION_SUFFIX = "NPGenerated";
     private static final String GENERATED_DIRECTORY = "generated";
     private static final String GENERATED_FUNC_FILE_NAME_SUFFIX = "_np_generated" + BAL_EXT;
-
-    private static final String BAL_CODEGEN_URL = "BAL_CODEGEN_URL";
-    private static final String BAL_CODEGEN_TOKEN = "BAL_CODEGEN_TOKEN";
-
-    private static final String copilotUrl = System.getenv(BAL_CODEGEN_URL);
-    private static final String copilotAccessToken = System.getenv(BAL_CODEGEN_TOKEN);
+    private static final String USED_DECLARATIONS_SEPARATOR = "\n";
+    private static final String OUTDATED_LOCK_ENTRY = String.format(
+            "no up-to-date entry in %s, regenerate it with BAL_CODEGEN_LOCK=update", NaturalCodeLock.FILE_NAME);
 
     @Override
     public void modify(SourceModifierContext modifierContext) {
@@ -113,65 +138,698 @@ public class CompileTimePromptAsCodeCodeModificationTask implements ModifierTask
             return;
         }
 
+        CodeGenerationOptions options = CodeGenerationOptions.fromEnvironment();
+        Optional<GeneratedCodeCache> cache = GeneratedCodeCache.fromEnvironment();
+        Optional<NaturalCodeLock> lock = options.lockMode == LockMode.OFF ? Optional.empty() :
+                Optional.of(NaturalCodeLock.load(getLockFileDirectory(sourceRoot)));
+
+        CodeGenerationReport report = new CodeGenerationReport();
+        // Cached and recorded code is invalidated when a declaration the function depends on changes.
+        List<CodeGenerationTarget> targets = collectTargets(currentPackage, isSingleBalFileMode,
+                options.pruneContext, cache.isPresent() || lock.isPresent(), report);
+        Map<TargetLocation, CompletableFuture<String>> lockedCode = lock.isPresent() ?
+                getLockedCode(targets, lock.get(), options.lockMode) : Map.of();
+        String packageOrgName = currentPackage.packageOrg().value();
+        // Generated functions are validated in a copy of the package, which isn't needed for expressions or for
+        // functions whose code is taken from the lock file, unless the lock file is being updated.
+        ValidationWorkspace validationWorkspace = null;
+        if (targets.stream().anyMatch(target -> target instanceof FunctionTarget &&
+                (options.lockMode == LockMode.UPDATE || !lockedCode.containsKey(target.location())))) {
+            long startTime = System.nanoTime();
+            validationWorkspace = new ValidationWorkspace(currentPackage.project(),
+                    CompileTimePromptAsCodeCodeModificationTask::npGeneratedFile, packageOrgName);
+            report.recordValidationWorkspace(System.nanoTime() - startTime);
+        }
+        Map<TargetLocation, CompletableFuture<String>> reusedCode = options.lockMode == LockMode.UPDATE ?
+                getValidLockedCode(targets, lockedCode, validationWorkspace) : lockedCode;
+        GenerationContext context = new GenerationContext(options, cache, new CopilotClient(options),
+                validationWorkspace, ConcurrentHashMap.newKeySet());
+        Map<TargetLocation, CompletableFuture<String>> generatedCode = generateCode(targets, reusedCode, context);
+        if (options.lockMode == LockMode.UPDATE) {
+            updateLock(lock.get(), targets, generatedCode, context.codeWithErrors());
+        }
+
+        // Generated files are written in the background, and all of them are written before returning.
+        try (GeneratedSourceWriter sourceWriter = new GeneratedSourceWriter()) {
+            for (ModuleId moduleId : currentPackage.moduleIds()) {
+                Module module = currentPackage.module(moduleId);
+                SemanticModel semanticModel = currentPackage.getCompilation().getSemanticModel(moduleId);
+
+                for (DocumentId documentId: module.documentIds()) {
+                    Document document = module.document(documentId);
+                    if (npGeneratedFile(document)) {
+                        modifierContext.modifySourceFile(TextDocuments.from(""), documentId);
+                        continue;
+                    }
+
+                    modifierContext.modifySourceFile(modifyDocument(document, semanticModel, sourceRoot,
+                            generatedCode, sourceWriter), documentId);
+                }
+
+                for (DocumentId documentId: module.testDocumentIds()) {
+                    Document document = module.document(documentId);
+                    modifierContext.modifyTestSourceFile(modifyDocument(document, semanticModel, sourceRoot,
+                            generatedCode, sourceWriter), documentId);
+                }
+            }
+        }
+
+        if (!isSingleBalFileMode && !targets.isEmpty()) {
+            writeReport(report, targets, generatedCode, sourceRoot);
+        }
+        reportFailures(targets, generatedCode);
+    }
+
+    private static List<CodeGenerationTarget> collectTargets(Package currentPackage, boolean isSingleBalFileMode,
+                                                             boolean pruneContext, boolean indexDeclarations,
+                                                             CodeGenerationReport report) {
+        List<CodeGenerationTarget> targets = new ArrayList<>();
         for (ModuleId moduleId : currentPackage.moduleIds()) {
             Module module = currentPackage.module(moduleId);
             SemanticModel semanticModel = currentPackage.getCompilation().getSemanticModel(moduleId);
+            ModuleData moduleData = new ModuleData(module, semanticModel, indexDeclarations);
 
-            for (DocumentId documentId: module.documentIds()) {
+            for (DocumentId documentId : module.documentIds()) {
                 Document document = module.document(documentId);
-                if (npGeneratedFile(document)) {
-                    modifierContext.modifySourceFile(TextDocuments.from(""), documentId);
+                if (!npGeneratedFile(document)) {
+                    collectTargets(document, semanticModel, moduleData, isSingleBalFileMode, pruneContext, report,
+                            targets);
+                }
+            }
+
+            for (DocumentId documentId : module.testDocumentIds()) {
+                collectTargets(module.document(documentId), semanticModel, moduleData, isSingleBalFileMode,
+                        pruneContext, report, targets);
+            }
+        }
+        return targets;
+    }
+
+    private static void collectTargets(Document document, SemanticModel semanticModel, ModuleData moduleData,
+                                       boolean isSingleBalFileMode, boolean pruneContext, CodeGenerationReport report,
+                                       List<CodeGenerationTarget> targets) {
+        ModulePartNode modulePartNode = document.syntaxTree().rootNode();
+        modulePartNode.accept(new CodeGenerationTargetCollector(semanticModel, moduleData, document,
+                isSingleBalFileMode, pruneContext, report, targets));
+    }
+
+    private static Map<TargetLocation, CompletableFuture<String>> generateCode(
+            List<CodeGenerationTarget> targets, Map<TargetLocation, CompletableFuture<String>> lockedCode,
+            GenerationContext context) {
+        Map<TargetLocation, TargetLocation> duplicateExpressions = new HashMap<>();
+        List<CodeGenerationTarget> uniqueTargets =
+                deduplicateExpressions(targets, lockedCode.keySet(), duplicateExpressions);
+        Map<TargetLocation, List<FunctionTarget>> dependencies = getDependencies(uniqueTargets);
+        // Targets with code from the lock file or the cache are not scheduled, but their code is still used by
+        // dependents.
+        Map<TargetLocation, CompletableFuture<String>> generatedCode = new HashMap<>(lockedCode);
+        addCachedCode(uniqueTargets, generatedCode, context);
+
+        try (CodeGenerationScheduler scheduler = new CodeGenerationScheduler(context.options().parallelism)) {
+            if (context.options().batchRequests) {
+                scheduleBatches(uniqueTargets, dependencies, generatedCode, scheduler, context);
+            }
+
+            for (CodeGenerationTarget target : uniqueTargets) {
+                schedule(target, dependencies, generatedCode, scheduler, context);
+            }
+            duplicateExpressions.forEach((duplicate, original) ->
+                    generatedCode.put(duplicate, generatedCode.get(original)));
+
+            CompletableFuture.allOf(generatedCode.values().toArray(CompletableFuture[]::new))
+                    .handle((result, throwable) -> null)
+                    .join();
+        }
+        duplicateExpressions.forEach((duplicate, original) -> {
+            if (context.codeWithErrors().contains(original)) {
+                context.codeWithErrors().add(duplicate);
+            }
+        });
+        return generatedCode;
+    }
+
+    private static void addCachedCode(List<CodeGenerationTarget> targets,
+                                      Map<TargetLocation, CompletableFuture<String>> generatedCode,
+                                      GenerationContext context) {
+        for (CodeGenerationTarget target : targets) {
+            if (target instanceof FunctionTarget functionTarget && !generatedCode.containsKey(target.location())) {
+                getCachedCode(functionTarget, context).ifPresent(code -> {
+                    target.report().setSource(CodeSource.CACHED);
+                    generatedCode.put(target.location(), CompletableFuture.completedFuture(code));
+                });
+            }
+        }
+    }
+
+    private static List<CodeGenerationTarget> deduplicateExpressions(
+            List<CodeGenerationTarget> targets, Set<TargetLocation> lockedTargets,
+            Map<TargetLocation, TargetLocation> duplicateExpressions) {
+        // Identical expressions, within or across modules, share the code generated for the first of them. Each
+        // target looked up in the lock file keeps the result of its own lookup, so that a missing or outdated entry
+        // isn't hidden by the entry of an identical expression.
+        Map<ExpressionKey, TargetLocation> expressions = new HashMap<>();
+        List<CodeGenerationTarget> uniqueTargets = new ArrayList<>(targets.size());
+        for (CodeGenerationTarget target : targets) {
+            if (target instanceof ConstNaturalExpressionTarget expressionTarget) {
+                TargetLocation original = expressions.putIfAbsent(new ExpressionKey(expressionTarget.generatedPrompt(),
+                        expressionTarget.expectedTypeSignature()), target.location());
+                if (original != null && !lockedTargets.contains(target.location())) {
+                    target.report().setSource(CodeSource.SHARED);
+                    duplicateExpressions.put(target.location(), original);
                     continue;
                 }
+            }
+            uniqueTargets.add(target);
+        }
+        return uniqueTargets;
+    }
 
-                modifierContext.modifySourceFile(
-                        modifyDocument(document, semanticModel, module, isSingleBalFileMode, sourceRoot), documentId);
+    private static CompletableFuture<String> schedule(CodeGenerationTarget target,
+                                                      Map<TargetLocation, List<FunctionTarget>> dependencies,
+                                                      Map<TargetLocation, CompletableFuture<String>> generatedCode,
+                                                      CodeGenerationScheduler scheduler, GenerationContext context) {
+        CompletableFuture<String> scheduledTarget = generatedCode.get(target.location());
+        if (scheduledTarget != null) {
+            return scheduledTarget;
+        }
+
+        Map<FunctionTarget, CompletableFuture<String>> dependencyCode = new LinkedHashMap<>();
+        for (FunctionTarget dependency : dependencies.getOrDefault(target.location(), List.of())) {
+            dependencyCode.put(dependency, schedule(dependency, dependencies, generatedCode, scheduler, context));
+        }
+
+        scheduledTarget = scheduler.schedule(() -> switch (target) {
+            case FunctionTarget functionTarget -> generateCode(functionTarget, dependencyCode, context);
+            case ConstNaturalExpressionTarget expressionTarget -> generateCode(expressionTarget, context);
+        }, List.copyOf(dependencyCode.values()));
+        generatedCode.put(target.location(), scheduledTarget);
+        return scheduledTarget;
+    }
+
+    private static void scheduleBatches(List<CodeGenerationTarget> targets,
+                                        Map<TargetLocation, List<FunctionTarget>> dependencies,
+                                        Map<TargetLocation, CompletableFuture<String>> generatedCode,
+                                        CodeGenerationScheduler scheduler, GenerationContext context) {
+        // Targets that depend on code generated for other targets are generated separately, once that code is
+        // available.
+        Map<ModuleData, List<CodeGenerationTarget>> batches = new LinkedHashMap<>();
+        for (CodeGenerationTarget target : targets) {
+            if (generatedCode.containsKey(target.location()) ||
+                    !dependencies.getOrDefault(target.location(), List.of()).isEmpty()) {
+                continue;
             }
+            batches.computeIfAbsent(target.moduleData(), moduleData -> new ArrayList<>()).add(target);
+        }
 
-            for (DocumentId documentId: module.testDocumentIds()) {
-                Document document = module.document(documentId);
-                modifierContext.modifyTestSourceFile(
-                        modifyDocument(document, semanticModel, module, isSingleBalFileMode, sourceRoot), documentId);
+        for (List<CodeGenerationTarget> batch : batches.values()) {
+            if (batch.size() > 1) {
+                scheduleBatch(batch, generatedCode, scheduler, context);
+            }
+        }
+    }
+
+    private static void scheduleBatch(List<CodeGenerationTarget> batch,
+                                      Map<TargetLocation, CompletableFuture<String>> generatedCode,
+                                      CodeGenerationScheduler scheduler, GenerationContext context) {
+        List<CompletableFuture<String>> results = new ArrayList<>(batch.size());
+        for (CodeGenerationTarget target : batch) {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            results.add(result);
+            generatedCode.put(target.location(), result);
+        }
+
+        scheduler.schedule(() -> {
+            generateCode(batch, results, context);
+            return null;
+        }, List.of()).whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                results.forEach(result -> result.completeExceptionally(throwable));
+            }
+        });
+    }
+
+    private static void generateCode(List<CodeGenerationTarget> batch, List<CompletableFuture<String>> results,
+                                     GenerationContext context) {
+        long startTime = System.nanoTime();
+        List<String> generatedPrompts = new ArrayList<>(batch.size());
+        List<JsonArray> sourceFiles = new ArrayList<>(batch.size());
+        for (CodeGenerationTarget target : batch) {
+            switch (target) {
+                case FunctionTarget functionTarget -> {
+                    long promptStartTime = System.nanoTime();
+                    generatedPrompts.add(generatePrompt(functionTarget.funcName(),
+                            functionTarget.generatedFuncName(), functionTarget.prompt()));
+                    target.report().recordPrompt(System.nanoTime() - promptStartTime);
+                    sourceFiles.add(getSourceFiles(functionTarget, Map.of()));
+                }
+                case ConstNaturalExpressionTarget expressionTarget -> {
+                    generatedPrompts.add(expressionTarget.generatedPrompt());
+                    sourceFiles.add(expressionTarget.moduleData().sourceFiles());
+                }
+            }
+        }
+
+        CodeGenerationBatch codeGenerationBatch = new CodeGenerationBatch(context.client(),
+                batch.stream().map(CodeGenerationTarget::report).toList());
+        List<CompletableFuture<GeneratedCode>> generatedCode =
+                generateCodeInBatch(codeGenerationBatch, generatedPrompts, sourceFiles);
+
+        // Each target is validated and repaired concurrently, the repairs of a round are sent together.
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < batch.size(); i++) {
+                int index = i;
+                CodeRepairer repairer = payload -> codeGenerationBatch.repair(index, payload);
+                executor.execute(() -> {
+                    try {
+                        String code = switch (batch.get(index)) {
+                            case FunctionTarget functionTarget -> {
+                                ValidatedCode repairedCode = repairGeneratedFunction(context.options(),
+                                        functionTarget.generatedFuncName(), generatedPrompts.get(index),
+                                        generatedCode.get(index).join(), sourceFiles.get(index),
+                                        context.validationWorkspace(), functionTarget.moduleData().module.moduleId(),
+                                        repairer, startTime, functionTarget.report());
+                                cache(functionTarget, repairedCode, context);
+                                yield accept(functionTarget, repairedCode, context);
+                            }
+                            case ConstNaturalExpressionTarget expressionTarget -> accept(expressionTarget,
+                                    repairGeneratedNaturalExpression(generatedCode.get(index).join(),
+                                            sourceFiles.get(index), generatedPrompts.get(index),
+                                            expressionTarget.document(), repairer, expressionTarget.report()),
+                                    context);
+                        };
+                        results.get(index).complete(code);
+                    } catch (RuntimeException e) {
+                        results.get(index).completeExceptionally(e);
+                    } finally {
+                        codeGenerationBatch.complete();
+                    }
+                });
+            }
+        }
+    }
+
+    private static String generateCode(FunctionTarget target,
+                                       Map<FunctionTarget, CompletableFuture<String>> dependencyCode,
+                                       GenerationContext context) {
+        ValidatedCode generatedCode = generateCodeForFunction(context.options(), target.funcName(),
+                target.generatedFuncName(), target.prompt(), context.client(), getSourceFiles(target, dependencyCode),
+                context.validationWorkspace(), target.moduleData().module.moduleId(), target.report());
+        cache(target, generatedCode, context);
+        return accept(target, generatedCode, context);
+    }
+
+    private static String accept(CodeGenerationTarget target, ValidatedCode code, GenerationContext context) {
+        // Code with errors left after repairing it is still used, but isn't recorded in the lock file.
+        if (!code.isValid()) {
+            context.codeWithErrors().add(target.location());
+        }
+        return code.code();
+    }
+
+    private static Optional<String> getCachedCode(FunctionTarget target, GenerationContext context) {
+        if (context.cache().isEmpty()) {
+            return Optional.empty();
+        }
+
+        // The declarations used by the code cached for the target are recorded under the key of the target, the
+        // code itself is cached under a key that also covers the current fingerprints of those declarations.
+        GeneratedCodeCache cache = context.cache().get();
+        String targetKey = getTargetCacheKey(target, context);
+        return cache.get(targetKey)
+                .map(usedDeclarations -> usedDeclarations.isEmpty() ? Set.<String>of() :
+                        Set.copyOf(Arrays.asList(usedDeclarations.split(USED_DECLARATIONS_SEPARATOR))))
+                .flatMap(usedDeclarations -> cache.get(getCodeCacheKey(targetKey, target, usedDeclarations)));
+    }
+
+    private static void cache(FunctionTarget target, ValidatedCode generatedCode, GenerationContext context) {
+        // Code with errors left after repairing it is regenerated in the next build instead of being reused.
+        if (context.cache().isEmpty() || !generatedCode.isValid()) {
+            return;
+        }
+
+        GeneratedCodeCache cache = context.cache().get();
+        String targetKey = getTargetCacheKey(target, context);
+        Set<String> usedDeclarations = new TreeSet<>(
+                target.moduleData().declarations().getReferencedDeclarations(generatedCode.code()));
+        cache.put(targetKey, String.join(USED_DECLARATIONS_SEPARATOR, usedDeclarations));
+        cache.put(getCodeCacheKey(targetKey, target, usedDeclarations), generatedCode.code());
+    }
+
+    private static String getTargetCacheKey(FunctionTarget target, GenerationContext context) {
+        return GeneratedCodeCache.computeKey(List.of(PLUGIN_VERSION, target.funcName(), target.prompt(),
+                target.signature(), String.valueOf(context.options().pruneContext)));
+    }
+
+    private static String getCodeCacheKey(String targetKey, FunctionTarget target, Set<String> usedDeclarations) {
+        return GeneratedCodeCache.computeKey(List.of(targetKey, getDeclarationDigest(target, usedDeclarations)));
+    }
+
+    private static String getDeclarationDigest(FunctionTarget target, Set<String> usedDeclarations) {
+        // Code is regenerated only if the prompt, or a declaration the signature, the prompt, or the generated code
+        // depends on changes, and not on unrelated changes to the module.
+        Set<String> dependencies = new HashSet<>(target.declarationDependencies());
+        dependencies.addAll(usedDeclarations);
+        return target.moduleData().declarations().computeDigest(dependencies);
+    }
+
+    private static String generateCode(ConstNaturalExpressionTarget target, GenerationContext context) {
+        return accept(target, generateCodeForNaturalExpression(context.client(), target.moduleData().sourceFiles(),
+                target.generatedPrompt(), target.document(), target.report()), context);
+    }
+
+    private static JsonArray getSourceFiles(FunctionTarget target,
+                                            Map<FunctionTarget, CompletableFuture<String>> dependencyCode) {
+        // Files generated in previous builds for this function and the functions it depends on are
+        // replaced with the code generated in this build.
+        Set<String> replacedFiles = new HashSet<>();
+        replacedFiles.add(getGeneratedBalFileName(target.funcName()));
+        for (FunctionTarget dependency : dependencyCode.keySet()) {
+            replacedFiles.add(getGeneratedBalFileName(dependency.funcName()));
+        }
+
+        JsonArray contextSourceFiles = target.contextSourceFiles().get();
+        JsonArray sourceFiles = new JsonArray(contextSourceFiles.size() + dependencyCode.size() + 1);
+        for (JsonElement sourceFile : contextSourceFiles) {
+            Path filePath = Paths.get(sourceFile.getAsJsonObject().get(FILE_PATH).getAsString());
+            if (!replacedFiles.contains(String.valueOf(filePath.getFileName()))) {
+                sourceFiles.add(sourceFile);
+            }
+        }
+
+        dependencyCode.forEach((dependency, code) -> {
+            // A dependency that failed is reported separately, continue without its code.
+            if (!code.isCompletedExceptionally()) {
+                sourceFiles.add(createGeneratedSourceFile(dependency.generatedFuncName(), code.join()));
+            }
+        });
+        return sourceFiles;
+    }
+
+    private static Map<TargetLocation, List<FunctionTarget>> getDependencies(List<CodeGenerationTarget> targets) {
+        List<FunctionTarget> functionTargets = new ArrayList<>();
+        for (CodeGenerationTarget target : targets) {
+            if (target instanceof FunctionTarget functionTarget) {
+                functionTargets.add(functionTarget);
+            }
+        }
+
+        Map<TargetLocation, List<FunctionTarget>> dependencies = new HashMap<>();
+        for (FunctionTarget target : functionTargets) {
+            List<FunctionTarget> targetDependencies = new ArrayList<>();
+            for (FunctionTarget candidate : functionTargets) {
+                if (candidate == target || candidate.moduleData() != target.moduleData() ||
+                        !target.promptWords().contains(candidate.funcName()) ||
+                        // Drop references that would introduce a cycle, code is generated for both independently.
+                        dependsOn(candidate, target, dependencies)) {
+                    continue;
+                }
+                targetDependencies.add(candidate);
+            }
+            dependencies.put(target.location(), targetDependencies);
+        }
+        return dependencies;
+    }
+
+    private static boolean dependsOn(FunctionTarget target, FunctionTarget dependency,
+                                     Map<TargetLocation, List<FunctionTarget>> dependencies) {
+        for (FunctionTarget directDependency : dependencies.getOrDefault(target.location(), List.of())) {
+            if (directDependency == dependency || dependsOn(directDependency, dependency, dependencies)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Path getLockFileDirectory(Path sourceRoot) {
+        // The source root of a single file project may be the file itself.
+        return Files.isDirectory(sourceRoot) ? sourceRoot : sourceRoot.toAbsolutePath().getParent();
+    }
+
+    private static Map<TargetLocation, CompletableFuture<String>> getLockedCode(List<CodeGenerationTarget> targets,
+                                                                                NaturalCodeLock lock,
+                                                                                LockMode lockMode) {
+        Map<TargetLocation, CompletableFuture<String>> lockedCode = new HashMap<>();
+        List<String> outdatedTargets = new ArrayList<>();
+        for (CodeGenerationTarget target : targets) {
+            Optional<String> code = switch (target) {
+                case FunctionTarget functionTarget -> lock.getFunctionCode(getModuleName(target),
+                        functionTarget.funcName(), code -> getLockFingerprint(functionTarget, code));
+                case ConstNaturalExpressionTarget expressionTarget ->
+                        lock.getExpressionCode(getModuleName(target), getLockFingerprint(expressionTarget));
+            };
+
+            if (code.isPresent()) {
+                target.report().setSource(CodeSource.LOCKED);
+                lockedCode.put(target.location(), CompletableFuture.completedFuture(code.get()));
+            } else if (lockMode == LockMode.REPLAY) {
+                // Reported along with the other failures, no code is generated in replay mode.
+                lockedCode.put(target.location(),
+                        CompletableFuture.failedFuture(new RuntimeException(OUTDATED_LOCK_ENTRY)));
+            } else if (lockMode == LockMode.VERIFY) {
+                outdatedTargets.add(target.description());
+            }
+        }
+
+        if (!outdatedTargets.isEmpty()) {
+            throw new RuntimeException(String.format("%s is out of date for %d of %d target(s), regenerate it " +
+                            "with BAL_CODEGEN_LOCK=update:%n  %s", NaturalCodeLock.FILE_NAME, outdatedTargets.size(),
+                    targets.size(), String.join(String.format("%n  "), outdatedTargets)));
+        }
+        return lockedCode;
+    }
+
+    private static Map<TargetLocation, CompletableFuture<String>> getValidLockedCode(
+            List<CodeGenerationTarget> targets, Map<TargetLocation, CompletableFuture<String>> lockedCode,
+            ValidationWorkspace validationWorkspace) {
+        // The fingerprint only covers the declarations of the module a function depends on, so recorded functions
+        // are also validated against the rest of the package and its dependencies, and regenerated if they no
+        // longer compile. They are validated concurrently, to compile them together.
+        Map<TargetLocation, CompletableFuture<String>> validCode = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (CodeGenerationTarget target : targets) {
+                CompletableFuture<String> code = lockedCode.get(target.location());
+                if (code == null) {
+                    continue;
+                }
+
+                if (!(target instanceof FunctionTarget functionTarget)) {
+                    validCode.put(target.location(), code);
+                    continue;
+                }
+
+                executor.execute(() -> {
+                    try {
+                        if (isValidFunction(functionTarget.generatedFuncName(), code.join(), validationWorkspace,
+                                functionTarget.moduleData().module.moduleId())) {
+                            validCode.put(target.location(), code);
+                            return;
+                        }
+                    } catch (RuntimeException e) {
+                        // Regenerated, a failure that persists is reported for the generated code.
+                    }
+                    target.report().setSource(CodeSource.GENERATED);
+                });
+            }
+        }
+        return validCode;
+    }
+
+    private static void updateLock(NaturalCodeLock lock, List<CodeGenerationTarget> targets,
+                                   Map<TargetLocation, CompletableFuture<String>> generatedCode,
+                                   Set<TargetLocation> codeWithErrors) {
+        // Only code whose last validation reported no errors is recorded. Functions that failed, or whose code
+        // still has errors, keep the code recorded for them earlier, if any.
+        List<NaturalCodeLock.Entry> functions = new ArrayList<>();
+        List<NaturalCodeLock.Entry> expressions = new ArrayList<>();
+        for (CodeGenerationTarget target : targets) {
+            CompletableFuture<String> result = generatedCode.get(target.location());
+            if (result.isCompletedExceptionally() || codeWithErrors.contains(target.location())) {
+                if (target instanceof FunctionTarget functionTarget) {
+                    lock.getFunctionEntry(getModuleName(target), functionTarget.funcName()).ifPresent(functions::add);
+                }
+                continue;
+            }
+
+            switch (target) {
+                case FunctionTarget functionTarget -> functions.add(new NaturalCodeLock.Entry(getModuleName(target),
+                        functionTarget.funcName(), getLockFingerprint(functionTarget, result.join()), result.join()));
+                case ConstNaturalExpressionTarget expressionTarget -> expressions.add(new NaturalCodeLock.Entry(
+                        getModuleName(target), null, getLockFingerprint(expressionTarget), result.join()));
+            }
+        }
+        lock.update(functions, expressions);
+    }
+
+    private static String getModuleName(CodeGenerationTarget target) {
+        return getModuleName(target.moduleData());
+    }
+
+    private static String getModuleName(ModuleData moduleData) {
+        return moduleData.module.descriptor().name().toString();
+    }
+
+    private static String getLockFingerprint(FunctionTarget target, String code) {
+        // Like the cache key, covers the declarations the function and the recorded code depend on, but unlike it,
+        // is independent of the plugin version, so the recorded code isn't regenerated on upgrades.
+        Set<String> usedDeclarations = target.moduleData().declarations().getReferencedDeclarations(code);
+        return GeneratedCodeCache.computeKey(List.of(target.funcName(), target.prompt(), target.signature(),
+                getDeclarationDigest(target, usedDeclarations)));
+    }
+
+    private static String getLockFingerprint(ConstNaturalExpressionTarget target) {
+        return GeneratedCodeCache.computeKey(List.of(target.generatedPrompt(), target.expectedTypeSignature()));
+    }
+
+    private static void writeReport(CodeGenerationReport report, List<CodeGenerationTarget> targets,
+                                    Map<TargetLocation, CompletableFuture<String>> generatedCode, Path sourceRoot) {
+        for (CodeGenerationTarget target : targets) {
+            CompletableFuture<String> result = generatedCode.get(target.location());
+            if (result.isCompletedExceptionally()) {
+                target.report().recordFailure(getFailureMessage(result));
             }
         }
+        report.write(sourceRoot.resolve(TARGET_DIR_NAME).resolve(CodeGenerationReport.CODE_GENERATION_REPORT_FILE));
+    }
+
+    private static void reportFailures(List<CodeGenerationTarget> targets,
+                                       Map<TargetLocation, CompletableFuture<String>> generatedCode) {
+        List<String> failures = new ArrayList<>();
+        for (CodeGenerationTarget target : targets) {
+            CompletableFuture<String> result = generatedCode.get(target.location());
+            if (result.isCompletedExceptionally()) {
+                failures.add(String.format("%s: %s", target.description(), getFailureMessage(result)));
+            }
+        }
+
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        throw new RuntimeException(String.format("Failed to generate code for %d of %d target(s):%n  %s",
+                failures.size(), targets.size(), String.join(String.format("%n  "), failures)));
     }
 
-    private static TextDocument modifyDocument(Document document, SemanticModel semanticModel, Module module,
-                                               boolean isSingleBalFileMode, Path sourceRoot) {
+    private static String getFailureMessage(CompletableFuture<String> result) {
+        try {
+            result.join();
+            return "";
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            return cause.getMessage();
+        }
+    }
+
+    private static TextDocument modifyDocument(Document document, SemanticModel semanticModel, Path sourceRoot,
+                                               Map<TargetLocation, CompletableFuture<String>> generatedCode,
+                                               GeneratedSourceWriter sourceWriter) {
         ModulePartNode modulePartNode = document.syntaxTree().rootNode();
         List<ImportDeclarationNode> newImports = new ArrayList<>();
         List<ModuleMemberDeclarationNode> newMembers = new ArrayList<>();
-        CodeGenerator codeGenerator = new CodeGenerator(semanticModel, module, newImports,
-                newMembers, isSingleBalFileMode, sourceRoot, document);
+        CodeGenerator codeGenerator = new CodeGenerator(semanticModel, newImports, newMembers, sourceRoot, document,
+                generatedCode, sourceWriter);
         ModulePartNode newRoot = (ModulePartNode) modulePartNode.apply(codeGenerator);
         newRoot = newRoot.modify(
                 newRoot.imports().addAll(newImports), newRoot.members().addAll(newMembers), newRoot.eofToken());
         return document.syntaxTree().modifyWith(newRoot).textDocument();
     }
 
+    private static class CodeGenerationTargetCollector extends NodeVisitor {
+        private final SemanticModel semanticModel;
+        private final ModuleData moduleData;
+        private final Document document;
+        private final boolean isSingleBalFileMode;
+        private final boolean pruneContext;
+        private final CodeGenerationReport report;
+        private final List<CodeGenerationTarget> targets;
+
+        CodeGenerationTargetCollector(SemanticModel semanticModel, ModuleData moduleData, Document document,
+                                      boolean isSingleBalFileMode, boolean pruneContext, CodeGenerationReport report,
+                                      List<CodeGenerationTarget> targets) {
+            this.semanticModel = semanticModel;
+            this.moduleData = moduleData;
+            this.document = document;
+            this.isSingleBalFileMode = isSingleBalFileMode;
+            this.pruneContext = pruneContext;
+            this.report = report;
+            this.targets = targets;
+        }
+
+        @Override
+        public void visit(FunctionDefinitionNode functionDefinition) {
+            if (!(functionDefinition.functionBody() instanceof ExternalFunctionBodyNode functionBody) ||
+                    !hasCodeAnnotation(functionBody, this.semanticModel)) {
+                super.visit(functionDefinition);
+                return;
+            }
+
+            if (this.isSingleBalFileMode) {
+                // Validator logs an error for this.
+                return;
+            }
+
+            String funcName = functionDefinition.functionName().text();
+            String prompt = getPrompt(functionDefinition, this.semanticModel);
+            Set<String> promptWords = getWords(prompt);
+            // Selected when the code is generated, so that no context is selected for cached code.
+            Supplier<JsonArray> contextSourceFiles = this.pruneContext ?
+                    () -> this.moduleData.selectSourceFiles(this.document, functionDefinition, promptWords) :
+                    this.moduleData::sourceFiles;
+            // Declarations the signature refers to or the prompt mentions, used to invalidate cached code.
+            Set<String> declarationDependencies = new HashSet<>();
+            ModuleDeclarationIndex declarations = this.moduleData.declarations();
+            if (declarations != null) {
+                declarationDependencies.addAll(ModuleDeclarationIndex.getReferencedDeclarations(
+                        this.moduleData.module, this.semanticModel, this.document,
+                        functionDefinition.functionSignature()));
+                declarationDependencies.addAll(declarations.getMentionedDeclarations(promptWords));
+            }
+            this.targets.add(new FunctionTarget(getLocation(this.document, functionDefinition), this.moduleData,
+                    funcName, funcName.concat(GENERATED_FUNCTION_SUFFIX), prompt, promptWords,
+                    functionDefinition.functionSignature().toSourceCode(), contextSourceFiles,
+                    declarationDependencies, this.report.addTarget(getModuleName(this.moduleData),
+                            String.format("function '%s'", funcName))));
+        }
+
+        @Override
+        public void visit(NaturalExpressionNode naturalExpressionNode) {
+            if (naturalExpressionNode.constKeyword().isEmpty()) {
+                return;
+            }
+
+            LinePosition startLine = naturalExpressionNode.lineRange().startLine();
+            TargetReport targetReport = this.report.addTarget(getModuleName(this.moduleData),
+                    String.format("const natural expression at %s:%d:%d", this.document.name(),
+                            startLine.line() + 1, startLine.offset() + 1));
+            TypeSymbol expectedType = this.semanticModel.expectedType(this.document, startLine).get();
+            long startTime = System.nanoTime();
+            String generatedPrompt = generatePrompt(naturalExpressionNode, expectedType, this.semanticModel);
+            targetReport.recordPrompt(System.nanoTime() - startTime);
+            this.targets.add(new ConstNaturalExpressionTarget(getLocation(this.document, naturalExpressionNode),
+                    this.moduleData, this.document, generatedPrompt, expectedType.signature(), targetReport));
+        }
+    }
+
     private static class CodeGenerator extends BaseNodeModifier {
         private final SemanticModel semanticModel;
-        private final Module module;
         private final List<ImportDeclarationNode> newImports;
         private final List<ModuleMemberDeclarationNode> newMembers;
-        private final boolean isSingleBalFileMode;
         private final Path sourceRoot;
         private final Document document;
+        private final Map<TargetLocation, CompletableFuture<String>> generatedCode;
+        private final GeneratedSourceWriter sourceWriter;
 
-        private HttpClient client = null;
-        private JsonArray sourceFiles = null;
-
-        public CodeGenerator(SemanticModel semanticModel, Module module,
+        public CodeGenerator(SemanticModel semanticModel,
                              List<ImportDeclarationNode> newImports, List<ModuleMemberDeclarationNode> newMembers,
-                             boolean isSingleBalFileMode,
-                             Path sourceRoot, Document document) {
+                             Path sourceRoot, Document document,
+                             Map<TargetLocation, CompletableFuture<String>> generatedCode,
+                             GeneratedSourceWriter sourceWriter) {
             this.semanticModel = semanticModel;
-            this.module = module;
             this.newImports = newImports;
             this.newMembers = newMembers;
-            this.isSingleBalFileMode = isSingleBalFileMode;
             this.sourceRoot = sourceRoot;
             this.document = document;
+            this.generatedCode = generatedCode;
+            this.sourceWriter = sourceWriter;
         }
 
         @Override
@@ -186,19 +844,15 @@ public class CompileTimePromptAsCodeCodeModificationTask implements ModifierTask
                 return (FunctionDefinitionNode) super.transform(functionDefinition);
             }
 
-            if (this.isSingleBalFileMode) {
-                // Validator logs an error for this.
+            Optional<String> generatedCode = getGeneratedCode(functionDefinition);
+            if (generatedCode.isEmpty()) {
+                // Either the Validator has logged an error or the failure is reported at the end.
                 return (FunctionDefinitionNode) super.transform(functionDefinition);
             }
 
             String funcName = functionDefinition.functionName().text();
             String generatedFuncName = funcName.concat(GENERATED_FUNCTION_SUFFIX);
-            String prompt = getPrompt(functionDefinition, semanticModel);
-            String generatedCode = generateCodeForFunction(copilotUrl, copilotAccessToken, funcName,
-                    generatedFuncName, prompt, getHttpClient(),
-                    this.getSourceFilesWithoutFileGeneratedForCurrentFunc(funcName), module.descriptor(),
-                    document.module().project().currentPackage().packageOrg().value());
-            handleGeneratedCode(funcName, generatedCode);
+            handleGeneratedCode(funcName, generatedCode.get());
             ExpressionFunctionBodyNode expressionFunctionBody =
                     NodeFactory.createExpressionFunctionBodyNode(
                             RIGHT_DOUBLE_ARROW,
@@ -213,9 +867,19 @@ public class CompileTimePromptAsCodeCodeModificationTask implements ModifierTask
                 return naturalExpressionNode;
             }
 
-            return generateCodeForNaturalExpression(naturalExpressionNode, copilotUrl, copilotAccessToken,
-                    getHttpClient(), this.getSourceFiles(), semanticModel, semanticModel
-                        .expectedType(document, naturalExpressionNode.lineRange().startLine()).get(), document);
+            Optional<String> generatedCode = getGeneratedCode(naturalExpressionNode);
+            if (generatedCode.isEmpty()) {
+                return naturalExpressionNode;
+            }
+            return NodeParser.parseExpression(generatedCode.get());
+        }
+
+        private Optional<String> getGeneratedCode(Node node) {
+            CompletableFuture<String> generatedCode = this.generatedCode.get(getLocation(this.document, node));
+            if (generatedCode == null || generatedCode.isCompletedExceptionally()) {
+                return Optional.empty();
+            }
+            return Optional.of(generatedCode.join());
         }
 
         private void handleGeneratedCode(String originalFuncName, String generatedCode) {
@@ -225,67 +889,98 @@ public class CompileTimePromptAsCodeCodeModificationTask implements ModifierTask
             this.newMembers.addAll(modulePartNode.members().stream().toList());
         }
 
-        private HttpClient getHttpClient() {
-            if (this.client != null) {
-                return this.client;
-            }
+        private void persistInGeneratedDirectory(String originalFuncName, String generatedCode) {
+            this.sourceWriter.write(Paths.get(this.sourceRoot.toString(), GENERATED_DIRECTORY,
+                    getGeneratedBalFileName(originalFuncName)), generatedCode);
+        }
+    }
 
-            this.client = HttpClient.newHttpClient();
-            return this.client;
+    private static JsonArray getSourceFiles(Module module) {
+        JsonArray sourceFiles = new JsonArray();
+        for (DocumentId documentId : module.documentIds()) {
+            Document document = module.document(documentId);
+            JsonObject sourceFile = new JsonObject();
+            sourceFile.addProperty(FILE_PATH, document.name());
+            sourceFile.addProperty(CONTENT, String.join("\n", document.textDocument().textLines()));
+            sourceFiles.add(sourceFile);
         }
+        return sourceFiles;
+    }
 
-        private JsonArray getSourceFilesWithoutFileGeneratedForCurrentFunc(String originalFunctionName) {
-            JsonArray sourceFiles = this.getSourceFiles();
-            JsonArray filteredSourceFiles = new JsonArray(sourceFiles.size());
-            for (JsonElement sourceFile : sourceFiles) {
-                if (!getGeneratedBalFileName(originalFunctionName).equals(
-                        sourceFile.getAsJsonObject().get(FILE_PATH).getAsString())) {
-                    filteredSourceFiles.add(sourceFile);
-                }
-            }
-            return filteredSourceFiles;
+    private static TargetLocation getLocation(Document document, Node node) {
+        return new TargetLocation(document.documentId(), node.textRange().startOffset());
+    }
+
+    private sealed interface CodeGenerationTarget permits FunctionTarget, ConstNaturalExpressionTarget {
+        TargetLocation location();
+
+        ModuleData moduleData();
+
+        TargetReport report();
+
+        default String description() {
+            return report().description();
         }
+    }
 
-        private JsonArray getSourceFiles() {
-            if (this.sourceFiles != null) {
-                return this.sourceFiles;
-            }
+    private record FunctionTarget(TargetLocation location, ModuleData moduleData, String funcName,
+                                  String generatedFuncName, String prompt, Set<String> promptWords, String signature,
+                                  Supplier<JsonArray> contextSourceFiles, Set<String> declarationDependencies,
+                                  TargetReport report)
+            implements CodeGenerationTarget { }
 
-            this.sourceFiles = getSourceFiles(this.module);
-            return this.sourceFiles;
+    private record ConstNaturalExpressionTarget(TargetLocation location, ModuleData moduleData, Document document,
+                                                String generatedPrompt, String expectedTypeSignature,
+                                                TargetReport report)
+            implements CodeGenerationTarget { }
+
+    private record TargetLocation(DocumentId documentId, int startOffset) { }
+
+    private record ExpressionKey(String generatedPrompt, String expectedTypeSignature) { }
+
+    // Code with errors is recorded by the location of its target.
+    private record GenerationContext(CodeGenerationOptions options, Optional<GeneratedCodeCache> cache,
+                                     CopilotClient client, ValidationWorkspace validationWorkspace,
+                                     Set<TargetLocation> codeWithErrors) { }
+
+    private static final class ModuleData {
+        private final Module module;
+        private final SemanticModel semanticModel;
+        private final boolean indexDeclarations;
+        // Created the first time a target of the module needs them, so modules without targets cost nothing.
+        private JsonArray sourceFiles;
+        private ModuleDeclarationIndex declarations;
+
+        private ModuleData(Module module, SemanticModel semanticModel, boolean indexDeclarations) {
+            this.module = module;
+            this.semanticModel = semanticModel;
+            this.indexDeclarations = indexDeclarations;
         }
 
-        private static JsonArray getSourceFiles(Module module) {
-            JsonArray sourceFiles = new JsonArray();
-            for (DocumentId documentId : module.documentIds()) {
-                Document document = module.document(documentId);
-                JsonObject sourceFile = new JsonObject();
-                sourceFile.addProperty(FILE_PATH, document.name());
-                sourceFile.addProperty(CONTENT, String.join("\n", document.textDocument().textLines()));
-                sourceFiles.add(sourceFile);
+        // Snapshot of the source files of the module, shared by all its targets. Must not be modified.
+        private synchronized JsonArray sourceFiles() {
+            if (this.sourceFiles == null) {
+                this.sourceFiles = getSourceFiles(this.module);
             }
-            return sourceFiles;
+            return this.sourceFiles;
         }
 
-        private void persistInGeneratedDirectory(String originalFuncName,
-                                                 String generatedCode) {
-            Path generatedDirPath = Paths.get(this.sourceRoot.toString(), GENERATED_DIRECTORY);
-            if (!Files.exists(generatedDirPath)) {
-                try {
-                    Files.createDirectories(generatedDirPath);
-                } catch (IOException e) {
-                    // Shouldn't be a showstopper?
-                    return;
-                }
+        // Null if neither cached nor recorded code is used. Only functions depend on declarations, so only the
+        // modules of functions are indexed.
+        private synchronized ModuleDeclarationIndex declarations() {
+            if (this.declarations == null && this.indexDeclarations) {
+                this.declarations = ModuleDeclarationIndex.create(this.module, this.semanticModel,
+                        CompileTimePromptAsCodeCodeModificationTask::npGeneratedFile);
             }
+            return this.declarations;
+        }
 
-            try (PrintWriter writer = new PrintWriter(
-                    Paths.get(generatedDirPath.toString(), getGeneratedBalFileName(originalFuncName)).toString(),
-                    StandardCharsets.UTF_8)) {
-                writer.println(Formatter.format(generatedCode));
-            } catch (IOException | FormatterException e) {
-                // Shouldn't be a showstopper?
-            }
+        // The semantic model is queried during selection, so the targets of the module select their context one
+        // at a time. The full module is used if the context could not be selected.
+        private synchronized JsonArray selectSourceFiles(Document document, FunctionDefinitionNode functionDefinition,
+                                                         Set<String> promptWords) {
+            return SourceContextSelector.selectSourceFiles(this.module, this.semanticModel, document,
+                    functionDefinition, promptWords).orElseGet(this::sourceFiles);
         }
     }
 
@@ -0,0 +1,534 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationEvents.CopilotRequest;
+import io.ballerina.lib.ai.np.compilerplugin.CopilotSession.SessionPayload;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Client for the Copilot code generation services.
+ * <p>
+ * All the clients share a single HTTP client, and therefore a single connection pool, for the lifetime of the
+ * plugin. HTTP/2 is preferred so that concurrent requests are multiplexed over the same connection.
+ * <p>
+ * Each request, including reading its response, must complete within the request timeout and the remaining time of
+ * the build. Requests that fail with a 429 or 5xx response, or a connection error, are retried with jittered
+ * exponential backoff. Once several consecutive requests have failed even after retrying, the service is considered
+ * unavailable and the remaining requests of the build fail without being sent.
+ *
+ * @since 0.4.3
+ */
+class CopilotClient {
+
+    private static final String CODE_PATH = "/code";
+    private static final String REPAIR_PATH = "/code/repair";
+    private static final String BATCH_CODE_PATH = "/code/batch";
+    private static final String BATCH_REPAIR_PATH = "/code/repair/batch";
+    private static final String AUTHORIZATION = "Authorization";
+    private static final String BEARER = "Bearer ";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String APPLICATION_JSON = "application/json";
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String GZIP = "gzip";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_MULTIPLE_CHOICES = 300;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_INTERNAL_SERVER_ERROR = 500;
+    private static final String RETRY_AFTER = "Retry-After";
+    private static final Duration INITIAL_BACKOFF = Duration.ofMillis(500);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+    private static final int MAX_BACKOFF_DOUBLINGS = 16;
+    private static final int CIRCUIT_BREAKER_THRESHOLD = 3;
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build();
+
+    // Closes response bodies that are not fully read by their deadline.
+    private static final ScheduledExecutorService DEADLINE_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("np-codegen-deadline").daemon().factory());
+
+    private final String copilotUrl;
+    private final String copilotAccessToken;
+    private final boolean compressRequests;
+    // Empty if the content of all the source files is sent with each request.
+    private final Optional<CopilotSession> session;
+    private final Duration requestTimeout;
+    // Empty if the time spent on requests in this build is not limited.
+    private final Optional<Instant> buildDeadline;
+    private final int maxRetries;
+    // Consecutive requests that failed even after retrying, the circuit is open once this reaches the threshold.
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    CopilotClient(CodeGenerationOptions options) {
+        this.copilotUrl = options.copilotUrl;
+        this.copilotAccessToken = options.copilotAccessToken;
+        this.compressRequests = options.compressRequests;
+        this.session = options.useSession ? Optional.of(new CopilotSession()) : Optional.empty();
+        this.requestTimeout = options.requestTimeout;
+        this.buildDeadline = options.buildTimeout.map(Instant.now()::plus);
+        this.maxRetries = options.maxRetries;
+    }
+
+    /**
+     * Sends a code generation request.
+     *
+     * @param payload  code generation payload
+     * @param target   description of the target the request is sent for
+     * @param listener notified of the statistics of the request once the response body is closed
+     * @return the response body, a stream of server-sent events, which must be closed by the caller
+     */
+    InputStream generateCode(JsonObject payload, String target, Consumer<RequestStats> listener)
+            throws URISyntaxException, IOException, InterruptedException {
+        return send(CODE_PATH, payload, target, listener);
+    }
+
+    /**
+     * Sends a code repair request.
+     *
+     * @param payload  code repair payload
+     * @param target   description of the target the request is sent for
+     * @param listener notified of the statistics of the request
+     * @return the response body
+     */
+    String repairCode(JsonObject payload, String target, Consumer<RequestStats> listener)
+            throws URISyntaxException, IOException, InterruptedException {
+        try (InputStream body = send(REPAIR_PATH, payload, target, listener)) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Sends a code generation request for a batch of targets.
+     *
+     * @param payload  batch code generation payload
+     * @param target   description of the targets the request is sent for
+     * @param listener notified of the statistics of the request once the response body is closed
+     * @return the response body, a stream of server-sent events for all the targets, which must be closed by the
+     * caller
+     */
+    InputStream generateCodeInBatch(JsonObject payload, String target, Consumer<RequestStats> listener)
+            throws URISyntaxException, IOException, InterruptedException {
+        return send(BATCH_CODE_PATH, payload, target, listener);
+    }
+
+    /**
+     * Sends a code repair request for a batch of targets.
+     *
+     * @param payload  batch code repair payload
+     * @param target   description of the targets the request is sent for
+     * @param listener notified of the statistics of the request
+     * @return the response body
+     */
+    String repairCodeInBatch(JsonObject payload, String target, Consumer<RequestStats> listener)
+            throws URISyntaxException, IOException, InterruptedException {
+        try (InputStream body = send(BATCH_REPAIR_PATH, payload, target, listener)) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private InputStream send(String path, JsonObject payload, String target, Consumer<RequestStats> listener)
+            throws URISyntaxException, IOException, InterruptedException {
+        CopilotRequest event = new CopilotRequest();
+        event.begin();
+        event.target = target;
+        event.path = path;
+        try {
+            return send(path, payload, listener, event);
+        } catch (URISyntaxException | IOException | InterruptedException | RuntimeException e) {
+            event.outcome = CodeGenerationEvents.getOutcome(e);
+            event.commit();
+            throw e;
+        }
+    }
+
+    private InputStream send(String path, JsonObject payload, Consumer<RequestStats> listener, CopilotRequest event)
+            throws URISyntaxException, IOException, InterruptedException {
+        if (this.consecutiveFailures.get() >= CIRCUIT_BREAKER_THRESHOLD) {
+            throw new IOException(String.format("The code generation service is unavailable, %d consecutive " +
+                    "requests failed", this.consecutiveFailures.get()));
+        }
+
+        Optional<SessionPayload> sessionPayload = this.session.map(session -> session.createPayload(payload));
+        JsonObject requestPayload = sessionPayload.map(SessionPayload::payload).orElse(payload);
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(new URI(this.copilotUrl + path))
+                .header(AUTHORIZATION, BEARER + this.copilotAccessToken)
+                .header(CONTENT_TYPE, APPLICATION_JSON)
+                .header(ACCEPT_ENCODING, GZIP);
+        HttpRequest.BodyPublisher bodyPublisher = createBodyPublisher(requestPayload);
+        requestBuilder.POST(bodyPublisher);
+        if (this.compressRequests) {
+            requestBuilder.header(CONTENT_ENCODING, GZIP);
+        }
+
+        event.bytesSent = bodyPublisher.contentLength();
+        long startTime = System.nanoTime();
+        TimedResponse timedResponse = sendWithRetries(requestBuilder);
+        HttpResponse<InputStream> response = timedResponse.response();
+        event.statusCode = response.statusCode();
+        if (response.statusCode() >= HTTP_OK && response.statusCode() < HTTP_MULTIPLE_CHOICES) {
+            sessionPayload.ifPresent(acceptedPayload -> this.session.get().accepted(acceptedPayload));
+        }
+
+        // Bytes are counted as sent and received, i.e., compressed if the body is compressed.
+        InputStream body = new DeadlineInputStream(new MeteredInputStream(response.body(), path,
+                bodyPublisher.contentLength(), System.nanoTime() - startTime, listener, event),
+                timedResponse.deadline());
+        boolean compressed = response.headers().firstValue(CONTENT_ENCODING)
+                .map(GZIP::equalsIgnoreCase)
+                .orElse(false);
+        return compressed ? new GZIPInputStream(body) : body;
+    }
+
+    private TimedResponse sendWithRetries(HttpRequest.Builder requestBuilder)
+            throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            Duration timeout = getTimeout();
+            Instant deadline = Instant.now().plus(timeout);
+            HttpResponse<InputStream> response;
+            try {
+                response = HTTP_CLIENT.send(requestBuilder.timeout(timeout).build(),
+                        HttpResponse.BodyHandlers.ofInputStream());
+            } catch (HttpTimeoutException e) {
+                // A stalled service is not retried, retrying would only spend the rest of the deadline waiting.
+                recordFailure();
+                throw e;
+            } catch (IOException e) {
+                if (attempt < this.maxRetries) {
+                    backOff(attempt, Optional.empty());
+                    continue;
+                }
+                recordFailure();
+                throw e;
+            }
+
+            int statusCode = response.statusCode();
+            if (statusCode != HTTP_TOO_MANY_REQUESTS && statusCode < HTTP_INTERNAL_SERVER_ERROR) {
+                this.consecutiveFailures.set(0);
+                return new TimedResponse(response, deadline);
+            }
+
+            if (attempt >= this.maxRetries) {
+                // The error response is handled as before.
+                recordFailure();
+                return new TimedResponse(response, deadline);
+            }
+            response.body().close();
+            backOff(attempt, response.headers().firstValue(RETRY_AFTER).flatMap(CopilotClient::parseRetryAfter));
+        }
+    }
+
+    private Duration getTimeout() throws HttpTimeoutException {
+        if (this.buildDeadline.isEmpty()) {
+            return this.requestTimeout;
+        }
+
+        Duration remainingTime = Duration.between(Instant.now(), this.buildDeadline.get());
+        if (remainingTime.isNegative() || remainingTime.isZero()) {
+            throw new HttpTimeoutException(
+                    "The time limit for code generation requests in this build has been reached");
+        }
+        return remainingTime.compareTo(this.requestTimeout) < 0 ? remainingTime : this.requestTimeout;
+    }
+
+    private void backOff(int attempt, Optional<Duration> retryAfter) throws HttpTimeoutException, InterruptedException {
+        // Full jitter, so that concurrent requests that failed together are not retried together.
+        long maxDelayMillis = Math.min(MAX_BACKOFF.toMillis(),
+                INITIAL_BACKOFF.toMillis() << Math.min(attempt, MAX_BACKOFF_DOUBLINGS));
+        long delayMillis = ThreadLocalRandom.current().nextLong(maxDelayMillis + 1);
+        if (retryAfter.isPresent()) {
+            delayMillis = Math.max(delayMillis, Math.min(retryAfter.get().toMillis(), MAX_BACKOFF.toMillis()));
+        }
+
+        if (this.buildDeadline.isPresent() &&
+                Instant.now().plusMillis(delayMillis).isAfter(this.buildDeadline.get())) {
+            recordFailure();
+            throw new HttpTimeoutException("The time limit for code generation requests in this build would be " +
+                    "reached before the request could be retried");
+        }
+        Thread.sleep(delayMillis);
+    }
+
+    private void recordFailure() {
+        this.consecutiveFailures.incrementAndGet();
+    }
+
+    private static Optional<Duration> parseRetryAfter(String retryAfter) {
+        try {
+            return Optional.of(Duration.ofSeconds(Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            // An HTTP date, fall back to the backoff delay.
+            return Optional.empty();
+        }
+    }
+
+    HttpRequest.BodyPublisher createBodyPublisher(JsonObject payload) throws IOException {
+        // The payload is written straight into the chunks that are sent, without first materializing it as a string.
+        ChunkedOutputStream body = new ChunkedOutputStream();
+        try (OutputStream outputStream = this.compressRequests ? new GZIPOutputStream(body, CHUNK_SIZE) : body;
+             JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+            GSON.toJson(payload, jsonWriter);
+        } catch (JsonIOException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        // Publishing the chunks together retains the content length of the body.
+        return HttpRequest.BodyPublishers.concat(body.chunks().stream()
+                .map(HttpRequest.BodyPublishers::ofByteArray)
+                .toArray(HttpRequest.BodyPublisher[]::new));
+    }
+
+    private record TimedResponse(HttpResponse<InputStream> response, Instant deadline) { }
+
+    /**
+     * Statistics of a request.
+     *
+     * @param path                 path the request was sent to
+     * @param bytesSent            size of the request body
+     * @param timeToFirstByteNanos time until the response headers were received, including retries
+     * @param bytesReceived        number of bytes of the response body read
+     * @param streamNanos          time from receiving the response headers until the response body was closed
+     */
+    record RequestStats(String path, long bytesSent, long timeToFirstByteNanos, long bytesReceived,
+                        long streamNanos) { }
+
+    /**
+     * A response body that counts the bytes read from it, and reports the statistics of the request and commits its
+     * event once closed.
+     */
+    private static final class MeteredInputStream extends FilterInputStream {
+
+        private final String path;
+        private final long bytesSent;
+        private final long timeToFirstByteNanos;
+        private final long streamStartTime = System.nanoTime();
+        private final Consumer<RequestStats> listener;
+        private final CopilotRequest event;
+        private final AtomicLong bytesReceived = new AtomicLong();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile IOException failure = null;
+
+        MeteredInputStream(InputStream body, String path, long bytesSent, long timeToFirstByteNanos,
+                           Consumer<RequestStats> listener, CopilotRequest event) {
+            super(body);
+            this.path = path;
+            this.bytesSent = bytesSent;
+            this.timeToFirstByteNanos = timeToFirstByteNanos;
+            this.listener = listener;
+            this.event = event;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                int b = super.read();
+                if (b != -1) {
+                    this.bytesReceived.incrementAndGet();
+                }
+                return b;
+            } catch (IOException e) {
+                this.failure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            try {
+                int read = super.read(bytes, offset, length);
+                if (read > 0) {
+                    this.bytesReceived.addAndGet(read);
+                }
+                return read;
+            } catch (IOException e) {
+                this.failure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // May be closed both by the reader and on expiry of the deadline.
+            if (this.closed.compareAndSet(false, true)) {
+                this.listener.accept(new RequestStats(this.path, this.bytesSent, this.timeToFirstByteNanos,
+                        this.bytesReceived.get(), System.nanoTime() - this.streamStartTime));
+                commitEvent();
+            }
+            super.close();
+        }
+
+        private void commitEvent() {
+            if (!this.event.shouldCommit()) {
+                return;
+            }
+
+            this.event.bytesReceived = this.bytesReceived.get();
+            if (this.failure != null) {
+                this.event.outcome = CodeGenerationEvents.getOutcome(this.failure);
+            } else if (this.event.statusCode >= HTTP_OK && this.event.statusCode < HTTP_MULTIPLE_CHOICES) {
+                this.event.outcome = CodeGenerationEvents.SUCCESS;
+            } else {
+                this.event.outcome = "HTTP " + this.event.statusCode;
+            }
+            this.event.commit();
+        }
+    }
+
+    /**
+     * A response body that is closed if it is not fully read by the deadline of the request. Reads blocked at the
+     * time fail with a timeout.
+     */
+    private final class DeadlineInputStream extends FilterInputStream {
+
+        private final ScheduledFuture<?> expiry;
+        private volatile boolean expired = false;
+
+        DeadlineInputStream(InputStream body, Instant deadline) {
+            super(body);
+            this.expiry = DEADLINE_SCHEDULER.schedule(this::expire,
+                    Math.max(0, Duration.between(Instant.now(), deadline).toMillis()), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw this.expired ? createTimeoutException() : e;
+            }
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            try {
+                return super.read(bytes, offset, length);
+            } catch (IOException e) {
+                throw this.expired ? createTimeoutException() : e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.expiry.cancel(false);
+            super.close();
+        }
+
+        private void expire() {
+            this.expired = true;
+            recordFailure();
+            try {
+                this.in.close();
+            } catch (IOException e) {
+                // Already closed.
+            }
+        }
+
+        private HttpTimeoutException createTimeoutException() {
+            return new HttpTimeoutException("Timed out reading the response of the code generation service");
+        }
+    }
+
+    /**
+     * An output stream that collects the bytes written to it in fixed-size chunks, so that growing the stream does
+     * not copy the bytes already written.
+     */
+    private static final class ChunkedOutputStream extends OutputStream {
+
+        private final List<byte[]> chunks = new ArrayList<>();
+        private byte[] chunk = new byte[CHUNK_SIZE];
+        private int count = 0;
+
+        @Override
+        public void write(int b) {
+            if (this.count == this.chunk.length) {
+                nextChunk();
+            }
+            this.chunk[this.count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                if (this.count == this.chunk.length) {
+                    nextChunk();
+                }
+
+                int written = Math.min(length, this.chunk.length - this.count);
+                System.arraycopy(bytes, offset, this.chunk, this.count, written);
+                this.count += written;
+                offset += written;
+                length -= written;
+            }
+        }
+
+        List<byte[]> chunks() {
+            List<byte[]> allChunks = new ArrayList<>(this.chunks);
+            if (this.count > 0) {
+                allChunks.add(Arrays.copyOf(this.chunk, this.count));
+            }
+            return allChunks;
+        }
+
+        private void nextChunk() {
+            this.chunks.add(this.chunk);
+            this.chunk = new byte[CHUNK_SIZE];
+            this.count = 0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.ballerina.lib.ai.np.compilerplugin.Commons.CONTENT;
+import static io.ballerina.lib.ai.np.compilerplugin.Commons.FILE_PATH;
+
+/**
+ * A code generation session, within which each distinct source file is sent to the Copilot service only once.
+ * <p>
+ * The service stores the content of each source file sent in a session against the SHA-256 digest of the content.
+ * Once a request that includes a source file has been accepted, subsequent requests in the same session refer to
+ * the file by the digest of its content instead of including the content.
+ *
+ * @since 0.4.3
+ */
+class CopilotSession {
+
+    private static final String SESSION_ID = "sessionId";
+    private static final String SOURCE_FILES = "sourceFiles";
+    private static final String CONTENT_HASH = "contentHash";
+    // Entries of batch payloads, each of which may have source files of its own.
+    private static final Set<String> ENTRIES = Set.of("targets", "repairs");
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final String sessionId = UUID.randomUUID().toString();
+    private final Set<String> acceptedContentHashes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates the payload to send in this session, in place of the specified payload.
+     *
+     * @param payload payload with the content of all the source files
+     * @return the session payload
+     */
+    SessionPayload createPayload(JsonObject payload) {
+        JsonObject sessionPayload = new JsonObject();
+        sessionPayload.addProperty(SESSION_ID, this.sessionId);
+        List<String> sentContentHashes = new ArrayList<>();
+        addMembers(payload, sessionPayload, sentContentHashes);
+        return new SessionPayload(sessionPayload, sentContentHashes);
+    }
+
+    private void addMembers(JsonObject payload, JsonObject sessionPayload, List<String> sentContentHashes) {
+        for (Map.Entry<String, JsonElement> member : payload.entrySet()) {
+            if (ENTRIES.contains(member.getKey()) && member.getValue().isJsonArray()) {
+                JsonArray entries = member.getValue().getAsJsonArray();
+                JsonArray sessionEntries = new JsonArray(entries.size());
+                for (JsonElement entry : entries) {
+                    JsonObject sessionEntry = new JsonObject();
+                    addMembers(entry.getAsJsonObject(), sessionEntry, sentContentHashes);
+                    sessionEntries.add(sessionEntry);
+                }
+                sessionPayload.add(member.getKey(), sessionEntries);
+                continue;
+            }
+
+            if (!SOURCE_FILES.equals(member.getKey())) {
+                sessionPayload.add(member.getKey(), member.getValue());
+                continue;
+            }
+
+            JsonArray sourceFiles = member.getValue().getAsJsonArray();
+            JsonArray sessionSourceFiles = new JsonArray(sourceFiles.size());
+            for (JsonElement sourceFile : sourceFiles) {
+                JsonObject sourceFileObj = sourceFile.getAsJsonObject();
+                String contentHash = computeContentHash(sourceFileObj.get(CONTENT).getAsString());
+                if (!this.acceptedContentHashes.contains(contentHash)) {
+                    sentContentHashes.add(contentHash);
+                    sessionSourceFiles.add(sourceFileObj);
+                    continue;
+                }
+
+                JsonObject sessionSourceFile = new JsonObject();
+                sessionSourceFile.add(FILE_PATH, sourceFileObj.get(FILE_PATH));
+                sessionSourceFile.addProperty(CONTENT_HASH, contentHash);
+                sessionSourceFiles.add(sessionSourceFile);
+            }
+            sessionPayload.add(SOURCE_FILES, sessionSourceFiles);
+        }
+    }
+
+    /**
+     * Records that the service has accepted a payload, and therefore the content of the source files sent with it.
+     *
+     * @param payload accepted payload
+     */
+    void accepted(SessionPayload payload) {
+        this.acceptedContentHashes.addAll(payload.sentContentHashes());
+    }
+
+    static String computeContentHash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to compute the digest of a source file: " + e.getMessage());
+        }
+    }
+
+    record SessionPayload(JsonObject payload, List<String> sentContentHashes) { }
+}
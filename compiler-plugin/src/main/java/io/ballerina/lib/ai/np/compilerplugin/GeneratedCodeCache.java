@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * A user-level, content-addressed store of the code generated for `@natural:code` functions.
+ * <p>
+ * Entries are keyed on a digest of everything that influences the generated code, and the least recently used
+ * entries are evicted once the total size of the store exceeds the configured limit.
+ *
+ * @since 0.4.3
+ */
+class GeneratedCodeCache {
+
+    private static final String BAL_CODEGEN_CACHE_DIR = "BAL_CODEGEN_CACHE_DIR";
+    private static final String BAL_CODEGEN_CACHE_MAX_SIZE_MB = "BAL_CODEGEN_CACHE_MAX_SIZE_MB";
+    private static final String BAL_CODEGEN_DISABLE_CACHE = "BAL_CODEGEN_DISABLE_CACHE";
+
+    private static final String USER_HOME = "user.home";
+    private static final String BALLERINA_USER_DIRECTORY = ".ballerina";
+    private static final String CACHE_DIRECTORY = "np-codegen-cache";
+    private static final String ENTRY_FILE_EXTENSION = ".bal";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final long DEFAULT_MAX_SIZE_MB = 100;
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final Path cacheDirectory;
+    private final long maxSizeInBytes;
+
+    GeneratedCodeCache(Path cacheDirectory, long maxSizeInBytes) {
+        this.cacheDirectory = cacheDirectory;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    static Optional<GeneratedCodeCache> fromEnvironment() {
+        if (Boolean.parseBoolean(CodeGenerationOptions.getValue(BAL_CODEGEN_DISABLE_CACHE))) {
+            return Optional.empty();
+        }
+
+        String cacheDirectory = CodeGenerationOptions.getValue(BAL_CODEGEN_CACHE_DIR);
+        Path cacheDirectoryPath = cacheDirectory == null ?
+                Path.of(System.getProperty(USER_HOME), BALLERINA_USER_DIRECTORY, CACHE_DIRECTORY) :
+                Path.of(cacheDirectory);
+
+        String maxSize = CodeGenerationOptions.getValue(BAL_CODEGEN_CACHE_MAX_SIZE_MB);
+        long maxSizeInMb = DEFAULT_MAX_SIZE_MB;
+        if (maxSize != null) {
+            try {
+                maxSizeInMb = Long.parseLong(maxSize.trim());
+            } catch (NumberFormatException e) {
+                throw new RuntimeException(
+                        String.format("Invalid value '%s' for %s, expected a number of megabytes",
+                                maxSize, BAL_CODEGEN_CACHE_MAX_SIZE_MB));
+            }
+        }
+
+        if (maxSizeInMb <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new GeneratedCodeCache(cacheDirectoryPath, maxSizeInMb * BYTES_PER_MB));
+    }
+
+    static String computeKey(List<String> components) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to compute the key for generated code: " + e.getMessage());
+        }
+
+        for (String component : components) {
+            byte[] bytes = component.getBytes(StandardCharsets.UTF_8);
+            // Length-prefix each component so that different splits of the same text don't collide.
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+            digest.update(bytes);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    Optional<String> get(String key) {
+        Path entryPath = getEntryPath(key);
+        try {
+            String code = Files.readString(entryPath, StandardCharsets.UTF_8);
+            // Record the access, the modification time is what eviction orders entries by.
+            Files.setLastModifiedTime(entryPath, FileTime.from(Instant.now()));
+            return Optional.of(code);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    void put(String key, String code) {
+        Path tempFile = null;
+        try {
+            Files.createDirectories(this.cacheDirectory);
+            tempFile = Files.createTempFile(this.cacheDirectory, key, TEMP_FILE_EXTENSION);
+            Files.writeString(tempFile, code, StandardCharsets.UTF_8);
+            Files.move(tempFile, getEntryPath(key),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
+            evictLeastRecentlyUsedEntries();
+        } catch (IOException e) {
+            // Failing to update the cache shouldn't fail the build.
+        } finally {
+            deleteIfExists(tempFile);
+        }
+    }
+
+    private void evictLeastRecentlyUsedEntries() throws IOException {
+        List<CacheEntry> entries = new ArrayList<>();
+        long totalSize = 0;
+        try (Stream<Path> paths = Files.list(this.cacheDirectory)) {
+            for (Path path : paths.toList()) {
+                if (!path.getFileName().toString().endsWith(ENTRY_FILE_EXTENSION)) {
+                    continue;
+                }
+
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    entries.add(new CacheEntry(path, attributes.size(), attributes.lastModifiedTime()));
+                    totalSize += attributes.size();
+                } catch (IOException e) {
+                    // Evicted concurrently by another build.
+                }
+            }
+        }
+
+        if (totalSize <= this.maxSizeInBytes) {
+            return;
+        }
+
+        entries.sort(Comparator.comparing(CacheEntry::lastAccessedTime));
+        for (CacheEntry entry : entries) {
+            if (totalSize <= this.maxSizeInBytes) {
+                return;
+            }
+            deleteIfExists(entry.path());
+            totalSize -= entry.size();
+        }
+    }
+
+    private Path getEntryPath(String key) {
+        return this.cacheDirectory.resolve(key + ENTRY_FILE_EXTENSION);
+    }
+
+    private static void deleteIfExists(Path path) {
+        if (path == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Ignore, will be retried on the next eviction.
+        }
+    }
+
+    private record CacheEntry(Path path, long size, FileTime lastAccessedTime) { }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import org.ballerinalang.formatter.core.Formatter;
+import org.ballerinalang.formatter.core.FormatterException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes generated source files in the background.
+ * <p>
+ * Generated code is formatted and written on virtual threads, so that the syntax trees can be modified without
+ * waiting on the file system. A file is only written if its content has changed, and is replaced atomically, so
+ * that unchanged files retain their timestamps and a partially written file is never observed. Line endings are
+ * always {@code \n}, irrespective of the platform.
+ *
+ * @since 0.4.3
+ */
+class GeneratedSourceWriter implements AutoCloseable {
+
+    private static final String LINE_SEPARATOR = "\n";
+    private static final String WINDOWS_LINE_SEPARATOR = "\r\n";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Formats and writes generated code to a file, unless the file already has the same content.
+     *
+     * @param file          file to write to
+     * @param generatedCode generated code
+     */
+    void write(Path file, String generatedCode) {
+        this.executor.execute(() -> writeIfChanged(file, generatedCode));
+    }
+
+    /**
+     * Waits for all the pending writes to complete.
+     */
+    @Override
+    public void close() {
+        this.executor.close();
+    }
+
+    /**
+     * Writes content to a file, unless the file already has the same content. The file is replaced atomically where
+     * the file system supports it.
+     *
+     * @param file    file to write to
+     * @param content content of the file
+     */
+    static void writeIfChanged(Path file, byte[] content) throws IOException {
+        if (Files.isRegularFile(file) && Arrays.equals(Files.readAllBytes(file), content)) {
+            return;
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, String.valueOf(file.getFileName()), TEMP_FILE_SUFFIX);
+        try {
+            Files.write(tempFile, content);
+            moveAtomically(tempFile, file);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void writeIfChanged(Path file, String generatedCode) {
+        try {
+            writeIfChanged(file, format(generatedCode).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | FormatterException e) {
+            // Shouldn't be a showstopper?
+        }
+    }
+
+    private static String format(String generatedCode) throws FormatterException {
+        // Terminated with an additional line separator, as the files have always been written.
+        return Formatter.format(generatedCode).replace(WINDOWS_LINE_SEPARATOR, LINE_SEPARATOR) + LINE_SEPARATOR;
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
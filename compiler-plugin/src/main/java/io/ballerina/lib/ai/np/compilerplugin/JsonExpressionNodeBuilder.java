@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import io.ballerina.compiler.syntax.tree.ExpressionNode;
+import io.ballerina.compiler.syntax.tree.MappingConstructorExpressionNode;
+import io.ballerina.compiler.syntax.tree.MappingFieldNode;
+import io.ballerina.compiler.syntax.tree.MinutiaeList;
+import io.ballerina.compiler.syntax.tree.Node;
+import io.ballerina.compiler.syntax.tree.NodeFactory;
+import io.ballerina.compiler.syntax.tree.SeparatedNodeList;
+import io.ballerina.compiler.syntax.tree.SyntaxKind;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static io.ballerina.compiler.syntax.tree.AbstractNodeFactory.createToken;
+
+/**
+ * Builds the syntax tree of a JSON value, made up of maps, collections, strings, numbers, and booleans, as a
+ * Ballerina expression, without serializing and parsing the value.
+ * <p>
+ * The tree has no minutiae, so its source is the same as the output of {@link CompactJsonWriter} for the value.
+ *
+ * @since 0.4.3
+ */
+final class JsonExpressionNodeBuilder {
+
+    private static final MinutiaeList NO_MINUTIAE = NodeFactory.createEmptyMinutiaeList();
+
+    private JsonExpressionNodeBuilder() {
+    }
+
+    static MappingConstructorExpressionNode createMappingConstructor(Map<?, ?> map) {
+        List<Node> fields = new ArrayList<>(map.size() * 2);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+
+            if (!fields.isEmpty()) {
+                fields.add(createToken(SyntaxKind.COMMA_TOKEN));
+            }
+            fields.add(NodeFactory.createSpecificFieldNode(null, createStringLiteral(String.valueOf(entry.getKey())),
+                    createToken(SyntaxKind.COLON_TOKEN), createExpression(entry.getValue())));
+        }
+        SeparatedNodeList<MappingFieldNode> fieldList =
+                NodeFactory.createSeparatedNodeList(fields.toArray(new Node[0]));
+        return NodeFactory.createMappingConstructorExpressionNode(createToken(SyntaxKind.OPEN_BRACE_TOKEN), fieldList,
+                createToken(SyntaxKind.CLOSE_BRACE_TOKEN));
+    }
+
+    private static ExpressionNode createExpression(Object value) {
+        return switch (value) {
+            case null -> NodeFactory.createBasicLiteralNode(SyntaxKind.NULL_LITERAL,
+                    createToken(SyntaxKind.NULL_KEYWORD));
+            case Map<?, ?> map -> createMappingConstructor(map);
+            case Collection<?> collection -> {
+                List<Node> members = new ArrayList<>(collection.size() * 2);
+                for (Object member : collection) {
+                    if (!members.isEmpty()) {
+                        members.add(createToken(SyntaxKind.COMMA_TOKEN));
+                    }
+                    members.add(createExpression(member));
+                }
+                SeparatedNodeList<Node> memberList = NodeFactory.createSeparatedNodeList(members.toArray(new Node[0]));
+                yield NodeFactory.createListConstructorExpressionNode(createToken(SyntaxKind.OPEN_BRACKET_TOKEN),
+                        memberList, createToken(SyntaxKind.CLOSE_BRACKET_TOKEN));
+            }
+            case Boolean bool -> NodeFactory.createBasicLiteralNode(SyntaxKind.BOOLEAN_LITERAL,
+                    createToken(bool ? SyntaxKind.TRUE_KEYWORD : SyntaxKind.FALSE_KEYWORD));
+            case Number number -> createNumericLiteral(number);
+            default -> createStringLiteral(value.toString());
+        };
+    }
+
+    private static ExpressionNode createNumericLiteral(Number number) {
+        boolean isInteger = number instanceof Integer || number instanceof Long || number instanceof Short ||
+                number instanceof Byte || number instanceof BigInteger;
+        SyntaxKind tokenKind = isInteger ?
+                SyntaxKind.DECIMAL_INTEGER_LITERAL_TOKEN : SyntaxKind.DECIMAL_FLOATING_POINT_LITERAL_TOKEN;
+        return NodeFactory.createBasicLiteralNode(SyntaxKind.NUMERIC_LITERAL,
+                NodeFactory.createLiteralValueToken(tokenKind, number.toString(), NO_MINUTIAE, NO_MINUTIAE));
+    }
+
+    private static ExpressionNode createStringLiteral(String value) {
+        return NodeFactory.createBasicLiteralNode(SyntaxKind.STRING_LITERAL,
+                NodeFactory.createLiteralValueToken(SyntaxKind.STRING_LITERAL_TOKEN, CompactJsonWriter.write(value),
+                        NO_MINUTIAE, NO_MINUTIAE));
+    }
+}
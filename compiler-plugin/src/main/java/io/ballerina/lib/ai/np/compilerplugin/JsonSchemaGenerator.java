@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import io.ballerina.compiler.api.symbols.ArrayTypeSymbol;
+import io.ballerina.compiler.api.symbols.Documentation;
+import io.ballerina.compiler.api.symbols.IntersectionTypeSymbol;
+import io.ballerina.compiler.api.symbols.RecordFieldSymbol;
+import io.ballerina.compiler.api.symbols.RecordTypeSymbol;
+import io.ballerina.compiler.api.symbols.SymbolKind;
+import io.ballerina.compiler.api.symbols.TableTypeSymbol;
+import io.ballerina.compiler.api.symbols.TupleTypeSymbol;
+import io.ballerina.compiler.api.symbols.TypeDescKind;
+import io.ballerina.compiler.api.symbols.TypeReferenceTypeSymbol;
+import io.ballerina.compiler.api.symbols.TypeSymbol;
+import io.ballerina.compiler.api.symbols.UnionTypeSymbol;
+import io.ballerina.lib.ai.np.compilerplugin.RuntimePromptAsCodeCodeModificationTask.TypeId;
+import io.ballerina.openapi.service.mapper.type.TypeMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates the JSON schemas of types directly from their type symbols, in the form the type mapper's schemas take
+ * once converted to JSON schemas and pruned, without going through OpenAPI schemas.
+ * <p>
+ * Only the kinds of types whose schemas are known to match are generated directly. Types that are or refer to other
+ * kinds of types are mapped with the type mapper instead, which is only created the first time it is needed. The
+ * schemas of referred type definitions are inlined, and are reused across the types of a compilation, so the
+ * returned maps must not be modified.
+ *
+ * @since 0.4.3
+ */
+final class JsonSchemaGenerator {
+
+    private static final String TYPE = "type";
+    private static final String REQUIRED = "required";
+    private static final String PROPERTIES = "properties";
+    private static final String DESCRIPTION = "description";
+    private static final String FORMAT = "format";
+    private static final String ENUM = "enum";
+    private static final String ANY_OF = "anyOf";
+    private static final String ITEMS = "items";
+
+    private static final String OBJECT = "object";
+    private static final String ARRAY = "array";
+    private static final String STRING = "string";
+    private static final String INTEGER = "integer";
+    private static final String NUMBER = "number";
+    private static final String BOOLEAN = "boolean";
+    private static final String NULL = "null";
+
+    // The keys that follow the description, in the order of the keys of the schemas converted by the type mapper.
+    private static final Set<String> KEYS_AFTER_DESCRIPTION = Set.of(FORMAT, ENUM, ANY_OF, ITEMS);
+    private static final Pattern NUMERIC_ESCAPE = Pattern.compile("\\\\u\\{([0-9a-fA-F]+)}");
+
+    private final Supplier<TypeMapper> typeMapper;
+    private final Map<TypeId, Map<String, Object>> definitionSchemas = new HashMap<>();
+    private final Set<TypeId> definitionsInProgress = new HashSet<>();
+    private int recursiveReferenceCount = 0;
+
+    JsonSchemaGenerator(Supplier<TypeMapper> typeMapper) {
+        this.typeMapper = typeMapper;
+    }
+
+    /**
+     * Generates the JSON schema of a type definition.
+     *
+     * @param typeReference reference to the type definition
+     * @return the JSON schema
+     */
+    Map<String, Object> generate(TypeReferenceTypeSymbol typeReference) {
+        try {
+            return getSchema(typeReference);
+        } catch (UnsupportedTypeException e) {
+            this.definitionsInProgress.clear();
+            return RuntimePromptAsCodeCodeModificationTask.getJsonSchema(
+                    this.typeMapper.get().getSchema(typeReference));
+        }
+    }
+
+    private Map<String, Object> getSchema(TypeSymbol type) {
+        return switch (type.typeKind()) {
+            case TYPE_REFERENCE -> getReferredTypeSchema((TypeReferenceTypeSymbol) type);
+            case INTERSECTION -> getSchema(((IntersectionTypeSymbol) type).effectiveTypeDescriptor());
+            case STRING -> schema(STRING, null);
+            case INT -> schema(INTEGER, "int64");
+            case FLOAT -> schema(NUMBER, "float");
+            case DECIMAL -> schema(NUMBER, "double");
+            case BOOLEAN -> schema(BOOLEAN, null);
+            // The type mapper maps bytes to strings of the byte format, which are overridden as numbers.
+            case BYTE -> schema(NUMBER, null);
+            case JSON, ANYDATA -> new LinkedHashMap<>();
+            case MAP -> schema(OBJECT, null);
+            case RECORD -> getRecordSchema((RecordTypeSymbol) type);
+            case ARRAY -> getArraySchema(getSchema(((ArrayTypeSymbol) type).memberTypeDescriptor()));
+            case TABLE -> getArraySchema(getSchema(((TableTypeSymbol) type).rowTypeParameter()));
+            case TUPLE -> getTupleSchema((TupleTypeSymbol) type);
+            case UNION -> getUnionSchema((UnionTypeSymbol) type);
+            default -> throw new UnsupportedTypeException();
+        };
+    }
+
+    private Map<String, Object> getReferredTypeSchema(TypeReferenceTypeSymbol typeReference) {
+        if (typeReference.definition().kind() != SymbolKind.TYPE_DEFINITION) {
+            return getSchema(typeReference.typeDescriptor());
+        }
+
+        Optional<TypeId> typeId = TypeId.from(typeReference);
+        if (typeId.isEmpty()) {
+            return getSchema(typeReference.typeDescriptor());
+        }
+
+        Map<String, Object> schema = this.definitionSchemas.get(typeId.get());
+        if (schema != null) {
+            return schema;
+        }
+
+        if (!this.definitionsInProgress.add(typeId.get())) {
+            // A recursive reference, which can be any value as far as the schema is concerned.
+            this.recursiveReferenceCount++;
+            return new LinkedHashMap<>();
+        }
+
+        int recursiveReferenceCount = this.recursiveReferenceCount;
+        schema = getSchema(typeReference.typeDescriptor());
+        this.definitionsInProgress.remove(typeId.get());
+        // The schema of a type that was cut short at a recursive reference depends on where the type was reached
+        // from, so it is not reused.
+        if (recursiveReferenceCount == this.recursiveReferenceCount) {
+            this.definitionSchemas.put(typeId.get(), schema);
+        }
+        return schema;
+    }
+
+    private Map<String, Object> getRecordSchema(RecordTypeSymbol recordType) {
+        Set<String> required = new TreeSet<>();
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (Map.Entry<String, RecordFieldSymbol> entry : recordType.fieldDescriptors().entrySet()) {
+            String name = getFieldName(entry.getKey());
+            RecordFieldSymbol field = entry.getValue();
+            if (!field.isOptional() && !field.hasDefaultValue()) {
+                required.add(name);
+            }
+
+            Map<String, Object> schema = getSchema(field.typeDescriptor());
+            Optional<String> description = field.documentation().flatMap(Documentation::description);
+            properties.put(name, description.isPresent() ? withDescription(schema, description.get()) : schema);
+        }
+
+        Map<String, Object> schema = new LinkedHashMap<>();
+        if (!required.isEmpty()) {
+            schema.put(REQUIRED, new ArrayList<>(required));
+        }
+        schema.put(TYPE, OBJECT);
+        schema.put(PROPERTIES, properties);
+        return schema;
+    }
+
+    private Map<String, Object> getTupleSchema(TupleTypeSymbol tupleType) {
+        List<TypeSymbol> memberTypes = new ArrayList<>();
+        tupleType.members().forEach(member -> memberTypes.add(member.typeDescriptor()));
+        tupleType.restTypeDescriptor().ifPresent(memberTypes::add);
+        return getArraySchema(getAnyOfSchema(memberTypes));
+    }
+
+    private Map<String, Object> getUnionSchema(UnionTypeSymbol unionType) {
+        List<TypeSymbol> memberTypes = new ArrayList<>();
+        boolean nullable = false;
+        for (TypeSymbol memberType : unionType.memberTypeDescriptors()) {
+            if (memberType.typeKind() == TypeDescKind.NIL) {
+                nullable = true;
+            } else {
+                memberTypes.add(memberType);
+            }
+        }
+
+        if (memberTypes.isEmpty()) {
+            throw new UnsupportedTypeException();
+        }
+
+        Map<String, Object> schema = getStringEnumSchema(memberTypes).orElseGet(() -> getAnyOfSchema(memberTypes));
+        return nullable ? asNullable(schema) : schema;
+    }
+
+    private Map<String, Object> getAnyOfSchema(List<TypeSymbol> memberTypes) {
+        if (memberTypes.size() == 1) {
+            return getSchema(memberTypes.getFirst());
+        }
+
+        List<Map<String, Object>> anyOf = new ArrayList<>(memberTypes.size());
+        for (TypeSymbol memberType : memberTypes) {
+            Map<String, Object> memberSchema = getSchema(memberType);
+            if (!anyOf.contains(memberSchema)) {
+                anyOf.add(memberSchema);
+            }
+        }
+        return anyOf.size() == 1 ? anyOf.getFirst() : Map.of(ANY_OF, anyOf);
+    }
+
+    private static Optional<Map<String, Object>> getStringEnumSchema(List<TypeSymbol> memberTypes) {
+        Set<String> values = new LinkedHashSet<>();
+        for (TypeSymbol memberType : memberTypes) {
+            Optional<String> value = getStringSingletonValue(memberType);
+            if (value.isEmpty()) {
+                return Optional.empty();
+            }
+            values.add(value.get());
+        }
+
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put(TYPE, STRING);
+        schema.put(ENUM, new ArrayList<>(values));
+        return Optional.of(schema);
+    }
+
+    private static Optional<String> getStringSingletonValue(TypeSymbol type) {
+        return switch (type.typeKind()) {
+            // Enum members and constants are referred to.
+            case TYPE_REFERENCE -> getStringSingletonValue(((TypeReferenceTypeSymbol) type).typeDescriptor());
+            case SINGLETON -> {
+                String literal = type.signature();
+                yield literal.length() > 1 && literal.startsWith("\"") && literal.endsWith("\"") &&
+                        literal.indexOf('\\') < 0 ?
+                        Optional.of(literal.substring(1, literal.length() - 1)) : Optional.empty();
+            }
+            default -> Optional.empty();
+        };
+    }
+
+    private static Map<String, Object> asNullable(Map<String, Object> schema) {
+        Object type = schema.get(TYPE);
+        if (type instanceof String) {
+            Map<String, Object> nullableSchema = new LinkedHashMap<>(schema);
+            nullableSchema.put(TYPE, List.of(type, NULL));
+            return nullableSchema;
+        }
+
+        if (type != null) {
+            return schema;
+        }
+
+        List<Object> anyOf = new ArrayList<>();
+        Object members = schema.get(ANY_OF);
+        if (members instanceof List<?> memberSchemas && schema.size() == 1) {
+            anyOf.addAll(memberSchemas);
+        } else {
+            anyOf.add(schema);
+        }
+        anyOf.add(schema(NULL, null));
+        return Map.of(ANY_OF, anyOf);
+    }
+
+    private static Map<String, Object> getArraySchema(Map<String, Object> itemsSchema) {
+        Map<String, Object> schema = schema(ARRAY, null);
+        schema.put(ITEMS, itemsSchema);
+        return schema;
+    }
+
+    private static Map<String, Object> schema(String type, String format) {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put(TYPE, type);
+        if (format != null) {
+            schema.put(FORMAT, format);
+        }
+        return schema;
+    }
+
+    private static Map<String, Object> withDescription(Map<String, Object> schema, String description) {
+        Map<String, Object> describedSchema = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : schema.entrySet()) {
+            if (!describedSchema.containsKey(DESCRIPTION) && KEYS_AFTER_DESCRIPTION.contains(entry.getKey())) {
+                describedSchema.put(DESCRIPTION, description);
+            }
+            describedSchema.put(entry.getKey(), entry.getValue());
+        }
+        describedSchema.putIfAbsent(DESCRIPTION, description);
+        return describedSchema;
+    }
+
+    private static String getFieldName(String name) {
+        // Unescaped as the type mapper unescapes identifiers, numeric escapes are decoded and then all the
+        // backslashes and quotes are dropped.
+        String unescapedName = NUMERIC_ESCAPE.matcher(name).replaceAll(escape ->
+                Matcher.quoteReplacement(Character.toString(Integer.parseInt(escape.group(1), 16))));
+        return unescapedName.replace("\\", "").replace("'", "");
+    }
+
+    private static final class UnsupportedTypeException extends RuntimeException {
+
+        UnsupportedTypeException() {
+            super(null, null, false, false);
+        }
+    }
+}
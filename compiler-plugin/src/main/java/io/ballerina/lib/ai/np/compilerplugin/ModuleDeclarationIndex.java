@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import io.ballerina.compiler.api.ModuleID;
+import io.ballerina.compiler.api.SemanticModel;
+import io.ballerina.compiler.api.symbols.ModuleSymbol;
+import io.ballerina.compiler.api.symbols.Symbol;
+import io.ballerina.compiler.syntax.tree.FunctionDefinitionNode;
+import io.ballerina.compiler.syntax.tree.ModuleMemberDeclarationNode;
+import io.ballerina.compiler.syntax.tree.ModulePartNode;
+import io.ballerina.compiler.syntax.tree.Node;
+import io.ballerina.compiler.syntax.tree.NodeParser;
+import io.ballerina.compiler.syntax.tree.NodeVisitor;
+import io.ballerina.compiler.syntax.tree.SimpleNameReferenceNode;
+import io.ballerina.lib.ai.np.compilerplugin.SourceContextSelector.CompactSourceWriter;
+import io.ballerina.projects.Document;
+import io.ballerina.projects.DocumentId;
+import io.ballerina.projects.Module;
+import io.ballerina.tools.diagnostics.Location;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * An index of the module-level declarations of a module, with a fingerprint of each declaration and the
+ * declarations it refers to, resolved through the semantic model.
+ * <p>
+ * A declaration is fingerprinted on its tokens, so that changes to comments and formatting do not change it. Only
+ * the signature of a function is considered, since generated code can only call it. The index is immutable once
+ * created and can be used concurrently.
+ *
+ * @since 0.4.3
+ */
+class ModuleDeclarationIndex {
+
+    private static final String ABSENT_DECLARATION = "";
+
+    private final Map<String, Declaration> declarations;
+
+    private ModuleDeclarationIndex(Map<String, Declaration> declarations) {
+        this.declarations = declarations;
+    }
+
+    /**
+     * Indexes the declarations of a module.
+     *
+     * @param module            module to index
+     * @param semanticModel     semantic model of the module
+     * @param excludedDocuments documents whose declarations are not indexed
+     * @return the index
+     */
+    static ModuleDeclarationIndex create(Module module, SemanticModel semanticModel,
+                                         Predicate<Document> excludedDocuments) {
+        Map<String, Document> documentsByName = new HashMap<>();
+        for (DocumentId documentId : module.documentIds()) {
+            Document document = module.document(documentId);
+            if (!excludedDocuments.test(document)) {
+                documentsByName.put(document.name(), document);
+            }
+        }
+
+        // Symbols declared by the same member, e.g., an enum and its members, share a declaration.
+        Map<ModuleMemberDeclarationNode, Declaration> memberDeclarations = new IdentityHashMap<>();
+        Map<String, Declaration> declarations = new HashMap<>();
+        for (Symbol symbol : semanticModel.moduleSymbols()) {
+            Optional<String> name = symbol.getName();
+            Optional<Location> location = symbol.getLocation();
+            if (name.isEmpty() || location.isEmpty()) {
+                continue;
+            }
+
+            Document document = documentsByName.get(location.get().lineRange().fileName());
+            if (document == null) {
+                continue;
+            }
+
+            Optional<ModuleMemberDeclarationNode> member =
+                    findMember(document, location.get().textRange().startOffset());
+            if (member.isEmpty()) {
+                continue;
+            }
+
+            declarations.put(name.get(), memberDeclarations.computeIfAbsent(member.get(),
+                    memberNode -> createDeclaration(module, semanticModel, document, memberNode)));
+        }
+        return new ModuleDeclarationIndex(declarations);
+    }
+
+    /**
+     * Returns the module-level declarations referred to from a node, resolved through the semantic model.
+     *
+     * @param module        module the node belongs to
+     * @param semanticModel semantic model of the module
+     * @param document      document the node belongs to
+     * @param node          node to find references in
+     * @return the names of the referenced declarations
+     */
+    static Set<String> getReferencedDeclarations(Module module, SemanticModel semanticModel, Document document,
+                                                 Node node) {
+        Set<String> references = new HashSet<>();
+        node.accept(new NodeVisitor() {
+            @Override
+            public void visit(SimpleNameReferenceNode simpleNameReferenceNode) {
+                semanticModel.symbol(document, simpleNameReferenceNode.lineRange().startLine())
+                        .filter(symbol -> isModuleSymbol(module, symbol))
+                        .flatMap(Symbol::getName)
+                        .ifPresent(references::add);
+            }
+        });
+        return references;
+    }
+
+    /**
+     * Returns the declarations mentioned by name in a piece of text, e.g., a prompt.
+     *
+     * @param words words of the text, as returned by {@link Commons#getWords(String)}
+     * @return the names of the mentioned declarations
+     */
+    Set<String> getMentionedDeclarations(Set<String> words) {
+        Set<String> mentions = new HashSet<>();
+        for (String word : words) {
+            if (this.declarations.containsKey(word)) {
+                mentions.add(word);
+            }
+        }
+        return mentions;
+    }
+
+    /**
+     * Returns the declarations of the module referred to by name from code that is not part of the module, e.g.,
+     * generated code.
+     *
+     * @param code source code of a module part
+     * @return the names of the referenced declarations
+     */
+    Set<String> getReferencedDeclarations(String code) {
+        Set<String> references = new HashSet<>();
+        NodeParser.parseModulePart(code).accept(new NodeVisitor() {
+            @Override
+            public void visit(SimpleNameReferenceNode simpleNameReferenceNode) {
+                String name = simpleNameReferenceNode.name().text();
+                if (declarations.containsKey(name)) {
+                    references.add(name);
+                }
+            }
+        });
+        return references;
+    }
+
+    /**
+     * Computes a digest of the given declarations and the declarations they depend on, transitively. A declaration
+     * that no longer exists contributes to the digest as absent.
+     *
+     * @param names names of the declarations
+     * @return the digest
+     */
+    String computeDigest(Set<String> names) {
+        Set<String> dependencies = new TreeSet<>();
+        Deque<String> pendingNames = new ArrayDeque<>(names);
+        while (!pendingNames.isEmpty()) {
+            String name = pendingNames.poll();
+            if (!dependencies.add(name)) {
+                continue;
+            }
+
+            Declaration declaration = this.declarations.get(name);
+            if (declaration != null) {
+                pendingNames.addAll(declaration.dependencies());
+            }
+        }
+
+        List<String> components = new ArrayList<>(dependencies.size() * 2);
+        for (String name : dependencies) {
+            Declaration declaration = this.declarations.get(name);
+            components.add(name);
+            components.add(declaration == null ? ABSENT_DECLARATION : declaration.fingerprint());
+        }
+        return GeneratedCodeCache.computeKey(components);
+    }
+
+    private static Declaration createDeclaration(Module module, SemanticModel semanticModel, Document document,
+                                                 ModuleMemberDeclarationNode member) {
+        CompactSourceWriter writer = new CompactSourceWriter();
+        Node referencingNode = member;
+        if (member instanceof FunctionDefinitionNode function) {
+            function.qualifierList().forEach(writer::write);
+            writer.write(function.functionName());
+            writer.write(function.functionSignature());
+            referencingNode = function.functionSignature();
+        } else {
+            writer.write(member);
+        }
+        return new Declaration(GeneratedCodeCache.computeKey(List.of(writer.toString())),
+                getReferencedDeclarations(module, semanticModel, document, referencingNode));
+    }
+
+    private static Optional<ModuleMemberDeclarationNode> findMember(Document document, int offset) {
+        ModulePartNode modulePartNode = document.syntaxTree().rootNode();
+        for (ModuleMemberDeclarationNode member : modulePartNode.members()) {
+            if (member.textRangeWithMinutiae().startOffset() <= offset &&
+                    offset < member.textRangeWithMinutiae().endOffset()) {
+                return Optional.of(member);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isModuleSymbol(Module module, Symbol symbol) {
+        Optional<ModuleSymbol> moduleSymbol = symbol.getModule();
+        if (moduleSymbol.isEmpty()) {
+            return false;
+        }
+
+        ModuleID moduleId = moduleSymbol.get().id();
+        return moduleId.orgName().equals(module.descriptor().org().value()) &&
+                moduleId.moduleName().equals(module.descriptor().name().toString());
+    }
+
+    private record Declaration(String fingerprint, Set<String> dependencies) { }
+}
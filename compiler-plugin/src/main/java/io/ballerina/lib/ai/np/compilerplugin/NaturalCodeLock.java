@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The natural code lock file, {@code np.lock}, kept next to {@code Ballerina.toml}.
+ * <p>
+ * Records, for each `@natural:code` function and `const natural` expression of the package, a fingerprint of its
+ * prompt and the code accepted for it. Functions are identified by their module and name, and expressions by their
+ * module and fingerprint. Entries are written in a stable order, so that the file can be committed and reviewed.
+ *
+ * @since 0.4.3
+ */
+class NaturalCodeLock {
+
+    static final String FILE_NAME = "np.lock";
+
+    private static final int VERSION = 1;
+    private static final String VERSION_FIELD = "version";
+    private static final String FUNCTIONS = "functions";
+    private static final String EXPRESSIONS = "expressions";
+    private static final String MODULE = "module";
+    private static final String NAME = "name";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String CODE = "code";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    private final Path lockFile;
+    private final Map<FunctionKey, Entry> functions;
+    private final Map<ExpressionKey, Entry> expressions;
+
+    private NaturalCodeLock(Path lockFile, Map<FunctionKey, Entry> functions, Map<ExpressionKey, Entry> expressions) {
+        this.lockFile = lockFile;
+        this.functions = functions;
+        this.expressions = expressions;
+    }
+
+    /**
+     * Reads the lock file in a directory. The lock is empty if there is no lock file.
+     *
+     * @param directory directory containing the lock file
+     * @return the lock
+     */
+    static NaturalCodeLock load(Path directory) {
+        Path lockFile = directory.resolve(FILE_NAME);
+        Map<FunctionKey, Entry> functions = new HashMap<>();
+        Map<ExpressionKey, Entry> expressions = new HashMap<>();
+        if (!Files.isRegularFile(lockFile)) {
+            return new NaturalCodeLock(lockFile, functions, expressions);
+        }
+
+        try {
+            JsonObject lock = JsonParser.parseString(Files.readString(lockFile, StandardCharsets.UTF_8))
+                    .getAsJsonObject();
+            int version = lock.get(VERSION_FIELD).getAsInt();
+            if (version != VERSION) {
+                throw new RuntimeException(String.format("Unsupported %s version %d, expected %d",
+                        FILE_NAME, version, VERSION));
+            }
+
+            for (Entry entry : readEntries(lock.getAsJsonArray(FUNCTIONS), true)) {
+                functions.put(new FunctionKey(entry.module(), entry.name()), entry);
+            }
+            for (Entry entry : readEntries(lock.getAsJsonArray(EXPRESSIONS), false)) {
+                expressions.put(new ExpressionKey(entry.module(), entry.fingerprint()), entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Includes malformed JSON and missing or mistyped fields.
+            throw new RuntimeException(String.format("Failed to read %s: %s", lockFile, e.getMessage()));
+        }
+        return new NaturalCodeLock(lockFile, functions, expressions);
+    }
+
+    /**
+     * Returns the code recorded for a function, if it was recorded for the same fingerprint.
+     *
+     * @param module      name of the module of the function
+     * @param funcName    name of the function
+     * @param fingerprint computes the current fingerprint of the function for the recorded code, which depends on
+     *                    the declarations the code uses
+     * @return the recorded code, if up-to-date
+     */
+    Optional<String> getFunctionCode(String module, String funcName, Function<String, String> fingerprint) {
+        Entry entry = this.functions.get(new FunctionKey(module, funcName));
+        return entry == null || !entry.fingerprint().equals(fingerprint.apply(entry.code())) ? Optional.empty() :
+                Optional.of(entry.code());
+    }
+
+    /**
+     * Returns the entry recorded for a function, regardless of its fingerprint.
+     *
+     * @param module   name of the module of the function
+     * @param funcName name of the function
+     * @return the recorded entry, if any
+     */
+    Optional<Entry> getFunctionEntry(String module, String funcName) {
+        return Optional.ofNullable(this.functions.get(new FunctionKey(module, funcName)));
+    }
+
+    /**
+     * Returns the code recorded for an expression with the given fingerprint.
+     *
+     * @param module      name of the module of the expression
+     * @param fingerprint fingerprint of the prompt of the expression
+     * @return the recorded code, if any
+     */
+    Optional<String> getExpressionCode(String module, String fingerprint) {
+        Entry entry = this.expressions.get(new ExpressionKey(module, fingerprint));
+        return entry == null ? Optional.empty() : Optional.of(entry.code());
+    }
+
+    /**
+     * Replaces the entries of the lock and writes the lock file, unless its content is unchanged.
+     *
+     * @param functions   entries for the functions
+     * @param expressions entries for the expressions, without names
+     */
+    void update(List<Entry> functions, List<Entry> expressions) {
+        this.functions.clear();
+        for (Entry entry : functions) {
+            this.functions.put(new FunctionKey(entry.module(), entry.name()), entry);
+        }
+        this.expressions.clear();
+        for (Entry entry : expressions) {
+            this.expressions.put(new ExpressionKey(entry.module(), entry.fingerprint()), entry);
+        }
+
+        JsonObject lock = new JsonObject();
+        lock.addProperty(VERSION_FIELD, VERSION);
+        lock.add(FUNCTIONS, writeEntries(this.functions.values(),
+                Comparator.comparing(Entry::module).thenComparing(Entry::name)));
+        lock.add(EXPRESSIONS, writeEntries(this.expressions.values(),
+                Comparator.comparing(Entry::module).thenComparing(Entry::fingerprint)));
+        try {
+            GeneratedSourceWriter.writeIfChanged(this.lockFile,
+                    (GSON.toJson(lock) + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Failed to write %s: %s", this.lockFile, e.getMessage()));
+        }
+    }
+
+    private static List<Entry> readEntries(JsonArray entries, boolean named) {
+        if (entries == null) {
+            return List.of();
+        }
+
+        return entries.asList().stream()
+                .map(JsonElement::getAsJsonObject)
+                .map(entry -> new Entry(getString(entry, MODULE), named ? getString(entry, NAME) : null,
+                        getString(entry, FINGERPRINT), getString(entry, CODE)))
+                .toList();
+    }
+
+    private static String getString(JsonObject entry, String field) {
+        JsonElement value = entry.get(field);
+        if (value == null || !value.isJsonPrimitive()) {
+            throw new RuntimeException(String.format("missing '%s' in entry %s", field, entry));
+        }
+        return value.getAsString();
+    }
+
+    private static JsonArray writeEntries(Collection<Entry> entries, Comparator<Entry> order) {
+        JsonArray entriesArray = new JsonArray(entries.size());
+        entries.stream().sorted(order).forEach(entry -> {
+            JsonObject entryObj = new JsonObject();
+            entryObj.addProperty(MODULE, entry.module());
+            if (entry.name() != null) {
+                entryObj.addProperty(NAME, entry.name());
+            }
+            entryObj.addProperty(FINGERPRINT, entry.fingerprint());
+            entryObj.addProperty(CODE, entry.code());
+            entriesArray.add(entryObj);
+        });
+        return entriesArray;
+    }
+
+    /**
+     * An entry of the lock file.
+     *
+     * @param module      name of the module
+     * @param name        name of the function, {@code null} for an expression
+     * @param fingerprint fingerprint of the prompt
+     * @param code        accepted code
+     */
+    record Entry(String module, String name, String fingerprint, String code) { }
+
+    private record FunctionKey(String module, String name) { }
+
+    private record ExpressionKey(String module, String fingerprint) { }
+}
@@ -18,44 +18,49 @@
 
 package io.ballerina.lib.ai.np.compilerplugin;
 
+import io.ballerina.compiler.api.ModuleID;
 import io.ballerina.compiler.api.SemanticModel;
 import io.ballerina.compiler.api.symbols.ArrayTypeSymbol;
+import io.ballerina.compiler.api.symbols.ModuleSymbol;
 import io.ballerina.compiler.api.symbols.RecordTypeSymbol;
+import io.ballerina.compiler.api.symbols.Symbol;
 import io.ballerina.compiler.api.symbols.TupleTypeSymbol;
 import io.ballerina.compiler.api.symbols.TypeReferenceTypeSymbol;
 import io.ballerina.compiler.api.symbols.TypeSymbol;
 import io.ballerina.compiler.api.symbols.UnionTypeSymbol;
 import io.ballerina.compiler.syntax.tree.AnnotationNode;
-import io.ballerina.compiler.syntax.tree.BaseNodeModifier;
 import io.ballerina.compiler.syntax.tree.IdentifierToken;
 import io.ballerina.compiler.syntax.tree.ImportDeclarationNode;
 import io.ballerina.compiler.syntax.tree.ImportOrgNameNode;
 import io.ballerina.compiler.syntax.tree.ImportPrefixNode;
 import io.ballerina.compiler.syntax.tree.MappingConstructorExpressionNode;
 import io.ballerina.compiler.syntax.tree.MetadataNode;
+import io.ballerina.compiler.syntax.tree.ModuleMemberDeclarationNode;
 import io.ballerina.compiler.syntax.tree.ModulePartNode;
 import io.ballerina.compiler.syntax.tree.NaturalExpressionNode;
 import io.ballerina.compiler.syntax.tree.NodeFactory;
 import io.ballerina.compiler.syntax.tree.NodeList;
 import io.ballerina.compiler.syntax.tree.NodeParser;
+import io.ballerina.compiler.syntax.tree.NodeVisitor;
 import io.ballerina.compiler.syntax.tree.SeparatedNodeList;
 import io.ballerina.compiler.syntax.tree.SyntaxKind;
 import io.ballerina.compiler.syntax.tree.Token;
-import io.ballerina.compiler.syntax.tree.TreeModifier;
 import io.ballerina.compiler.syntax.tree.TypeDefinitionNode;
-import io.ballerina.openapi.service.mapper.type.TypeMapper;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationEvents.JsonSchemaSerialization;
+import io.ballerina.lib.ai.np.compilerplugin.CodeGenerationEvents.TypeSchemaMapping;
 import io.ballerina.projects.Document;
 import io.ballerina.projects.DocumentId;
 import io.ballerina.projects.Module;
 import io.ballerina.projects.ModuleId;
 import io.ballerina.projects.Package;
+import io.ballerina.projects.ProjectKind;
 import io.ballerina.projects.plugins.ModifierTask;
 import io.ballerina.projects.plugins.SourceModifierContext;
 import io.ballerina.tools.text.TextDocument;
-import io.swagger.v3.core.util.Json;
 import io.swagger.v3.core.util.OpenAPISchema2JsonSchema;
 import io.swagger.v3.oas.models.media.Schema;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -66,7 +71,7 @@ import java.util.Set;
 import static io.ballerina.compiler.syntax.tree.AbstractNodeFactory.createToken;
 import static io.ballerina.lib.ai.np.compilerplugin.Commons.AI_MODULE_NAME;
 import static io.ballerina.lib.ai.np.compilerplugin.Commons.BALLERINA_ORG_NAME;
-import static io.ballerina.projects.util.ProjectConstants.EMPTY_STRING;
+import static io.ballerina.projects.util.ProjectConstants.TARGET_DIR_NAME;
 
 /**
  * Code modification task to replace runtime prompt as code external functions with np:call.
@@ -99,112 +104,142 @@ public class RuntimePromptAsCodeCodeModificationTask implements ModifierTask<Sou
             return;
         }
 
+        CodeGenerationReport report = new CodeGenerationReport();
+        JsonSchemaGenerator schemaGenerator = new JsonSchemaGenerator(this.analysisData::getTypeMapper);
+        // A single sweep of each document collects the schemas of the expected types of natural expressions, the
+        // type definitions, and the prefix of the ai module import.
         for (ModuleId moduleId : currentPackage.moduleIds()) {
             Module module = currentPackage.module(moduleId);
+            SemanticModel semanticModel = modifierContext.compilation().getSemanticModel(moduleId);
 
             for (DocumentId documentId: module.documentIds()) {
-                Document document = module.document(documentId);
-                generateSchemasForExpectedTypes(document, modifierData, modifierContext, moduleId,
-                        this.analysisData.typeMapper);
+                analyzeDocument(module.document(documentId), modifierData, semanticModel, schemaGenerator, report);
             }
 
             for (DocumentId documentId: module.testDocumentIds()) {
-                Document document = module.document(documentId);
-                generateSchemasForExpectedTypes(document, modifierData, modifierContext, moduleId,
-                        this.analysisData.typeMapper);
+                analyzeDocument(module.document(documentId), modifierData, semanticModel, schemaGenerator, report);
             }
+        }
 
-            for (DocumentId documentId: module.documentIds()) {
-                Document document = module.document(documentId);
-                Optional<String> aiImportPrefix = getAiImportPrefix(document);
-                modifierContext.modifySourceFile(modifyDocument(document, modifierData, aiImportPrefix), documentId);
+        // Only the documents that define types with generated schemas are modified.
+        for (DocumentId documentId : getDocumentsDefiningSchemaTypes(modifierData)) {
+            Module module = currentPackage.module(documentId.moduleId());
+            Document document = module.document(documentId);
+            TextDocument modifiedDocument = modifyDocument(document, modifierData,
+                    Optional.ofNullable(modifierData.aiImportPrefixes.get(documentId)));
+            if (module.documentIds().contains(documentId)) {
+                modifierContext.modifySourceFile(modifiedDocument, documentId);
+            } else {
+                modifierContext.modifyTestSourceFile(modifiedDocument, documentId);
             }
+        }
 
-            for (DocumentId documentId: module.testDocumentIds()) {
-                Document document = module.document(documentId);
-                Optional<String> aiImportPrefix = getAiImportPrefix(document);
-                modifierContext.modifyTestSourceFile(
-                        modifyDocument(document, modifierData, aiImportPrefix), documentId);
-            }
+        if (currentPackage.project().kind() == ProjectKind.BUILD_PROJECT && !report.isEmpty()) {
+            report.write(currentPackage.project().sourceRoot().resolve(TARGET_DIR_NAME)
+                    .resolve(CodeGenerationReport.SCHEMA_REPORT_FILE));
         }
     }
 
-    private Optional<String> getAiImportPrefix(Document document) {
-        ModulePartNode modulePartNode = document.syntaxTree().rootNode();
-        for (ImportDeclarationNode importDeclarationNode : modulePartNode.imports()) {
-            Optional<ImportOrgNameNode> importOrgNameNode = importDeclarationNode.orgName();
-            if (importOrgNameNode.isEmpty() || !BALLERINA_ORG_NAME.equals(importOrgNameNode.get().orgName().text())) {
-                continue;
-            }
+    private static Optional<String> getAiImportPrefix(ImportDeclarationNode importDeclarationNode) {
+        Optional<ImportOrgNameNode> importOrgNameNode = importDeclarationNode.orgName();
+        if (importOrgNameNode.isEmpty() || !BALLERINA_ORG_NAME.equals(importOrgNameNode.get().orgName().text())) {
+            return Optional.empty();
+        }
 
-            SeparatedNodeList<IdentifierToken> moduleName = importDeclarationNode.moduleName();
-            if (moduleName.size() > 1 || !AI_MODULE_NAME.equals(moduleName.iterator().next().text())) {
-                continue;
-            }
+        SeparatedNodeList<IdentifierToken> moduleName = importDeclarationNode.moduleName();
+        if (moduleName.size() > 1 || !AI_MODULE_NAME.equals(moduleName.iterator().next().text())) {
+            return Optional.empty();
+        }
+
+        Optional<ImportPrefixNode> prefix = importDeclarationNode.prefix();
+        return Optional.of(prefix.isEmpty() ? AI_MODULE_NAME : prefix.get().prefix().text());
+    }
 
-            Optional<ImportPrefixNode> prefix = importDeclarationNode.prefix();
-            return Optional.of(prefix.isEmpty() ? AI_MODULE_NAME : prefix.get().prefix().text());
+    private static Set<DocumentId> getDocumentsDefiningSchemaTypes(ModifierData modifierData) {
+        Set<DocumentId> documentIds = new HashSet<>();
+        for (TypeId typeId : modifierData.typeSchemas.keySet()) {
+            DocumentId documentId = modifierData.typeDefinitionDocuments.get(typeId);
+            if (documentId != null) {
+                documentIds.add(documentId);
+            }
         }
-        return Optional.empty();
+        return documentIds;
     }
 
-    private static void generateSchemasForExpectedTypes(Document document, ModifierData modifierData,
-                                                        SourceModifierContext modifierContext,
-                                                        ModuleId moduleId,
-                                                        TypeMapper typeMapper) {
+    private static void analyzeDocument(Document document, ModifierData modifierData, SemanticModel semanticModel,
+                                        JsonSchemaGenerator schemaGenerator, CodeGenerationReport report) {
         ModulePartNode modulePartNode = document.syntaxTree().rootNode();
-        NaturalExpressionSchemaGenerator naturalExpressionSchemaGenerator =
-                new NaturalExpressionSchemaGenerator(
-                        modifierData, modifierContext, moduleId, document, typeMapper);
-        modulePartNode.apply(naturalExpressionSchemaGenerator);
+        modulePartNode.accept(new DocumentAnalyzer(modifierData, semanticModel, document, schemaGenerator, report));
     }
 
-    private static TextDocument modifyDocument(Document document, ModifierData modifierData,
+    static TextDocument modifyDocument(Document document, ModifierData modifierData,
                                                Optional<String> aiImportPrefix) {
         TypeDefinitionModifier typeDefinitionModifier =
                 new TypeDefinitionModifier(modifierData.typeSchemas, modifierData, aiImportPrefix, document);
 
+        // Type definitions are module members, so the rest of the tree is not traversed.
         ModulePartNode modulePartNode = document.syntaxTree().rootNode();
-        ModulePartNode finalRoot = (ModulePartNode) modulePartNode.apply(typeDefinitionModifier);
-        finalRoot = finalRoot.modify(
-                updateImports(document, finalRoot, modifierData), finalRoot.members(), finalRoot.eofToken());
+        List<ModuleMemberDeclarationNode> members = new ArrayList<>(modulePartNode.members().size());
+        for (ModuleMemberDeclarationNode member : modulePartNode.members()) {
+            members.add(member instanceof TypeDefinitionNode typeDefinitionNode ?
+                    typeDefinitionModifier.modify(typeDefinitionNode) : member);
+        }
 
+        ModulePartNode finalRoot = modulePartNode.modify(updateImports(document, modulePartNode, modifierData),
+                NodeFactory.createNodeList(members), modulePartNode.eofToken());
         return document.syntaxTree().modifyWith(finalRoot).textDocument();
     }
 
-    private static class NaturalExpressionSchemaGenerator extends BaseNodeModifier {
+    private static class DocumentAnalyzer extends NodeVisitor {
 
         private final ModifierData modifierData;
         private final SemanticModel semanticModel;
         private final Document document;
-        private final TypeMapper typeMapper;
+        private final JsonSchemaGenerator schemaGenerator;
+        private final CodeGenerationReport report;
 
-        NaturalExpressionSchemaGenerator(ModifierData modifierData, SourceModifierContext modifierContext,
-                                         ModuleId moduleId, Document document, TypeMapper typeMapper) {
+        DocumentAnalyzer(ModifierData modifierData, SemanticModel semanticModel, Document document,
+                         JsonSchemaGenerator schemaGenerator, CodeGenerationReport report) {
             this.modifierData = modifierData;
-            this.semanticModel = modifierContext.compilation().getSemanticModel(moduleId);
+            this.semanticModel = semanticModel;
             this.document = document;
-            this.typeMapper = typeMapper;
+            this.schemaGenerator = schemaGenerator;
+            this.report = report;
+        }
+
+        @Override
+        public void visit(ImportDeclarationNode importDeclarationNode) {
+            if (!this.modifierData.aiImportPrefixes.containsKey(this.document.documentId())) {
+                getAiImportPrefix(importDeclarationNode).ifPresent(prefix ->
+                        this.modifierData.aiImportPrefixes.put(this.document.documentId(), prefix));
+            }
+        }
+
+        @Override
+        public void visit(TypeDefinitionNode typeDefinitionNode) {
+            this.modifierData.typeDefinitionDocuments.put(
+                    TypeId.from(this.document.module(), typeDefinitionNode.typeName().text()),
+                    this.document.documentId());
+            visitSyntaxNode(typeDefinitionNode);
         }
 
         @Override
-        public NaturalExpressionNode transform(NaturalExpressionNode naturalExpressionNode) {
+        public void visit(NaturalExpressionNode naturalExpressionNode) {
             Optional<TypeSymbol> typeSymbol =
                     semanticModel.expectedType(document, naturalExpressionNode.lineRange().startLine());
-            typeSymbol.ifPresent(symbol -> populateTypeSchema(symbol, this.typeMapper,
-                    this.modifierData.typeSchemas, this.semanticModel.types().ANYDATA));
-            return naturalExpressionNode;
+            typeSymbol.ifPresent(symbol -> populateTypeSchema(symbol, this.schemaGenerator,
+                    this.modifierData.typeSchemas, this.semanticModel.types().ANYDATA, this.report));
         }
     }
 
-    private static class TypeDefinitionModifier extends TreeModifier {
+    private static class TypeDefinitionModifier {
 
-        private final Map<String, String> typeSchemas;
+        private final Map<TypeId, Map<String, Object>> typeSchemas;
         private final ModifierData modifierData;
         private final Optional<String> aiImportPrefix;
         private final Document document;
 
-        TypeDefinitionModifier(Map<String, String> typeSchemas, ModifierData modifierData,
+        TypeDefinitionModifier(Map<TypeId, Map<String, Object>> typeSchemas, ModifierData modifierData,
                                Optional<String> aiImportPrefix, Document document) {
             this.typeSchemas = typeSchemas;
             this.modifierData = modifierData;
@@ -212,28 +247,28 @@ public class RuntimePromptAsCodeCodeModificationTask implements ModifierTask<Sou
             this.document = document;
         }
 
-        @Override
-        public TypeDefinitionNode transform(TypeDefinitionNode typeDefinitionNode) {
-            String typeName = typeDefinitionNode.typeName().text();
-
-            if (!this.typeSchemas.containsKey(typeName)) {
+        TypeDefinitionNode modify(TypeDefinitionNode typeDefinitionNode) {
+            TypeId typeId = TypeId.from(this.document.module(), typeDefinitionNode.typeName().text());
+            Map<String, Object> schema = this.typeSchemas.get(typeId);
+            if (schema == null) {
                 return typeDefinitionNode;
             }
 
             if (this.aiImportPrefix.isEmpty()) {
-                modifierData.documentsRequiringAiImport.add(this.document);
+                modifierData.documentsRequiringAiImport.add(this.document.documentId());
             }
 
             MetadataNode updatedMetadataNode =
-                                updateMetadata(typeDefinitionNode, typeSchemas.get(typeName),
+                                updateMetadata(typeDefinitionNode, schema, typeId.toString(),
                                                this.aiImportPrefix.orElse(AI_MODULE_NAME));
             return typeDefinitionNode.modify().withMetadata(updatedMetadataNode).apply();
         }
 
-        private MetadataNode updateMetadata(TypeDefinitionNode typeDefinitionNode, String schema, String aiPrefix) {
+        private MetadataNode updateMetadata(TypeDefinitionNode typeDefinitionNode, Map<String, Object> schema,
+                                            String typeName, String aiPrefix) {
             MetadataNode metadataNode = getMetadataNode(typeDefinitionNode);
             NodeList<AnnotationNode> updatedAnnotations =
-                                            updateAnnotations(metadataNode.annotations(), schema, aiPrefix);
+                                            updateAnnotations(metadataNode.annotations(), schema, typeName, aiPrefix);
             return metadataNode.modify().withAnnotations(updatedAnnotations).apply();
         }
     }
@@ -246,29 +281,49 @@ public class RuntimePromptAsCodeCodeModificationTask implements ModifierTask<Sou
     }
 
     private static NodeList<AnnotationNode> updateAnnotations(NodeList<AnnotationNode> currentAnnotations,
-                                                              String jsonSchema, String aiPrefix) {
+                                                              Map<String, Object> jsonSchema, String typeName,
+                                                              String aiPrefix) {
         NodeList<AnnotationNode> updatedAnnotations = NodeFactory.createNodeList();
 
         if (currentAnnotations.isEmpty()) {
-            updatedAnnotations = updatedAnnotations.add(getSchemaAnnotation(jsonSchema, aiPrefix));
+            updatedAnnotations = updatedAnnotations.add(getSchemaAnnotation(jsonSchema, typeName, aiPrefix));
         }
 
         return updatedAnnotations;
     }
 
-    public static AnnotationNode getSchemaAnnotation(String jsonSchema, String aiPrefix) {
+    public static AnnotationNode getSchemaAnnotation(Map<String, Object> jsonSchema, String typeName,
+                                                     String aiPrefix) {
         String configIdentifierString = aiPrefix + COLON.text() + SCHEMA_ANNOTATION_IDENTIFIER;
         IdentifierToken identifierToken = NodeFactory.createIdentifierToken(configIdentifierString);
 
         return NodeFactory.createAnnotationNode(
                 NodeFactory.createToken(SyntaxKind.AT_TOKEN),
                 NodeFactory.createSimpleNameReferenceNode(identifierToken),
-                getAnnotationExpression(jsonSchema)
+                getAnnotationExpression(jsonSchema, typeName)
         );
     }
 
-    public static MappingConstructorExpressionNode getAnnotationExpression(String jsonSchema) {
-        return (MappingConstructorExpressionNode) NodeParser.parseExpression(jsonSchema);
+    private static MappingConstructorExpressionNode getAnnotationExpression(Map<String, Object> jsonSchema,
+                                                                            String typeName) {
+        JsonSchemaSerialization event = new JsonSchemaSerialization();
+        event.begin();
+        MappingConstructorExpressionNode expression = null;
+        try {
+            // Built from the schema rather than parsed from its serialized form, which yields the same source.
+            expression = JsonExpressionNodeBuilder.createMappingConstructor(jsonSchema);
+            event.outcome = CodeGenerationEvents.SUCCESS;
+            return expression;
+        } catch (RuntimeException e) {
+            event.outcome = CodeGenerationEvents.getOutcome(e);
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.target = typeName;
+                event.schemaLength = expression == null ? 0 : expression.textRangeWithMinutiae().length();
+                event.commit();
+            }
+        }
     }
 
     private static boolean containsBallerinaAIImport(NodeList<ImportDeclarationNode> imports) {
@@ -290,7 +345,7 @@ public class RuntimePromptAsCodeCodeModificationTask implements ModifierTask<Sou
             return imports;
         }
 
-        if (modifierData.documentsRequiringAiImport.contains(document)) {
+        if (modifierData.documentsRequiringAiImport.contains(document.documentId())) {
             return imports.add(createImportDeclarationForAiModule());
         }
         return imports;
@@ -301,41 +356,70 @@ public class RuntimePromptAsCodeCodeModificationTask implements ModifierTask<Sou
         return NodeParser.parseImportDeclaration(String.format("import %s/%s;", BALLERINA_ORG_NAME, AI_MODULE_NAME));
     }
 
-    private static void populateTypeSchema(TypeSymbol memberType, TypeMapper typeMapper,
-                                           Map<String, String> typeSchemas, TypeSymbol anydataType) {
+    /**
+     * Generates the JSON schemas of the types referred to by a type. The schema of a type is only generated the first
+     * time it is referred to in a compilation. References are not followed, so recursive types terminate.
+     *
+     * @param memberType      type to generate the schemas of the referred types of
+     * @param schemaGenerator generator of the JSON schemas of the referred types
+     * @param typeSchemas     JSON schemas generated so far, keyed by the identity of the type
+     * @param anydataType     the {@code anydata} type, schemas are only generated for its subtypes
+     * @param report          report to record the time spent generating each schema in
+     */
+    static void populateTypeSchema(TypeSymbol memberType, JsonSchemaGenerator schemaGenerator,
+                                   Map<TypeId, Map<String, Object>> typeSchemas, TypeSymbol anydataType,
+                                   CodeGenerationReport report) {
         switch (memberType) {
             case TypeReferenceTypeSymbol typeReference -> {
-                if (!typeReference.subtypeOf(anydataType)) {
+                Optional<TypeId> typeId = TypeId.from(typeReference);
+                if (typeId.isEmpty() || typeSchemas.containsKey(typeId.get()) ||
+                        !typeReference.subtypeOf(anydataType)) {
                     return;
                 }
-                typeSchemas.put(typeReference.definition().getName().get(),
-                        getJsonSchema(typeMapper.getSchema(typeReference)));
+                String typeName = typeId.get().toString();
+                long startTime = System.nanoTime();
+                typeSchemas.put(typeId.get(), getSchema(schemaGenerator, typeReference, typeName));
+                report.recordSchema(typeName, System.nanoTime() - startTime);
             }
-            case ArrayTypeSymbol arrayType ->
-                            populateTypeSchema(arrayType.memberTypeDescriptor(), typeMapper, typeSchemas, anydataType);
+            case ArrayTypeSymbol arrayType -> populateTypeSchema(arrayType.memberTypeDescriptor(), schemaGenerator,
+                    typeSchemas, anydataType, report);
             case TupleTypeSymbol tupleType ->
-                    tupleType.members().forEach(member ->
-                            populateTypeSchema(member.typeDescriptor(), typeMapper, typeSchemas, anydataType));
+                    tupleType.members().forEach(member -> populateTypeSchema(member.typeDescriptor(), schemaGenerator,
+                            typeSchemas, anydataType, report));
             case RecordTypeSymbol recordType ->
-                    recordType.fieldDescriptors().values().forEach(field ->
-                            populateTypeSchema(field.typeDescriptor(), typeMapper, typeSchemas, anydataType));
+                    recordType.fieldDescriptors().values().forEach(field -> populateTypeSchema(field.typeDescriptor(),
+                            schemaGenerator, typeSchemas, anydataType, report));
             case UnionTypeSymbol unionTypeSymbol -> unionTypeSymbol.memberTypeDescriptors().forEach(member ->
-                            populateTypeSchema(member, typeMapper, typeSchemas, anydataType));
+                            populateTypeSchema(member, schemaGenerator, typeSchemas, anydataType, report));
             default -> { }
         }
     }
 
+    private static Map<String, Object> getSchema(JsonSchemaGenerator schemaGenerator,
+                                                 TypeReferenceTypeSymbol typeReference, String typeName) {
+        TypeSchemaMapping event = new TypeSchemaMapping();
+        event.begin();
+        try {
+            Map<String, Object> schema = schemaGenerator.generate(typeReference);
+            event.outcome = CodeGenerationEvents.SUCCESS;
+            return schema;
+        } catch (RuntimeException e) {
+            event.outcome = CodeGenerationEvents.getOutcome(e);
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.target = typeName;
+                event.commit();
+            }
+        }
+    }
 
-    @SuppressWarnings("rawtypes")
-    private static String getJsonSchema(Schema schema) {
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static Map<String, Object> getJsonSchema(Schema schema) {
         modifySchema(schema);
         OpenAPISchema2JsonSchema openAPISchema2JsonSchema = new OpenAPISchema2JsonSchema();
         openAPISchema2JsonSchema.process(schema);
-        String newLineRegex = "\\R";
-        String jsonCompressionRegex = "\\s*([{}\\[\\]:,])\\s*";
-        return Json.pretty(schema.getJsonSchema())
-                .replaceAll(newLineRegex, EMPTY_STRING)
-                .replaceAll(jsonCompressionRegex, "$1");
+        return schema.getJsonSchema();
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -430,7 +514,43 @@ public class RuntimePromptAsCodeCodeModificationTask implements ModifierTask<Sou
     }
 
     static final class ModifierData {
-        Set<Document> documentsRequiringAiImport = new HashSet<>(0);
-        Map<String, String> typeSchemas = new HashMap<>();
+        Set<DocumentId> documentsRequiringAiImport = new HashSet<>(0);
+        // The prefixes of the ai module imports of the documents that import it.
+        Map<DocumentId, String> aiImportPrefixes = new HashMap<>();
+        // Generated once per compilation for each type.
+        Map<TypeId, Map<String, Object>> typeSchemas = new HashMap<>();
+        // The documents the type definitions of the package are in.
+        Map<TypeId, DocumentId> typeDefinitionDocuments = new HashMap<>();
+    }
+
+    /**
+     * The identity of a type definition, which unlike the name of the type, is unique across modules.
+     *
+     * @param orgName    organization of the module the type is defined in
+     * @param moduleName name of the module the type is defined in
+     * @param typeName   name of the type
+     */
+    record TypeId(String orgName, String moduleName, String typeName) {
+
+        static Optional<TypeId> from(TypeReferenceTypeSymbol typeReference) {
+            Symbol definition = typeReference.definition();
+            Optional<String> typeName = definition.getName();
+            Optional<ModuleSymbol> module = definition.getModule();
+            if (typeName.isEmpty() || module.isEmpty()) {
+                return Optional.empty();
+            }
+
+            ModuleID moduleId = module.get().id();
+            return Optional.of(new TypeId(moduleId.orgName(), moduleId.moduleName(), typeName.get()));
+        }
+
+        static TypeId from(Module module, String typeName) {
+            return new TypeId(module.descriptor().org().value(), module.descriptor().name().toString(), typeName);
+        }
+
+        @Override
+        public String toString() {
+            return this.orgName + "/" + this.moduleName + ":" + this.typeName;
+        }
     }
 }
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.ballerina.compiler.api.ModuleID;
+import io.ballerina.compiler.api.SemanticModel;
+import io.ballerina.compiler.api.symbols.ModuleSymbol;
+import io.ballerina.compiler.api.symbols.ObjectTypeSymbol;
+import io.ballerina.compiler.api.symbols.Qualifier;
+import io.ballerina.compiler.api.symbols.Symbol;
+import io.ballerina.compiler.api.symbols.TypeReferenceTypeSymbol;
+import io.ballerina.compiler.api.symbols.TypeSymbol;
+import io.ballerina.compiler.api.symbols.VariableSymbol;
+import io.ballerina.compiler.syntax.tree.FunctionDefinitionNode;
+import io.ballerina.compiler.syntax.tree.ImportDeclarationNode;
+import io.ballerina.compiler.syntax.tree.Minutiae;
+import io.ballerina.compiler.syntax.tree.MinutiaeList;
+import io.ballerina.compiler.syntax.tree.ModuleMemberDeclarationNode;
+import io.ballerina.compiler.syntax.tree.ModulePartNode;
+import io.ballerina.compiler.syntax.tree.ModuleVariableDeclarationNode;
+import io.ballerina.compiler.syntax.tree.Node;
+import io.ballerina.compiler.syntax.tree.NodeVisitor;
+import io.ballerina.compiler.syntax.tree.NonTerminalNode;
+import io.ballerina.compiler.syntax.tree.SimpleNameReferenceNode;
+import io.ballerina.compiler.syntax.tree.Token;
+import io.ballerina.projects.Document;
+import io.ballerina.projects.DocumentId;
+import io.ballerina.projects.Module;
+import io.ballerina.tools.diagnostics.Location;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static io.ballerina.lib.ai.np.compilerplugin.Commons.CONTENT;
+import static io.ballerina.lib.ai.np.compilerplugin.Commons.FILE_PATH;
+
+/**
+ * Selects the parts of a module that are relevant to generating code for a function.
+ * <p>
+ * Starting from the signature of the function and the module-level symbols mentioned in the prompt, the
+ * declarations of the referenced types, functions, constants, and variables are selected transitively, along with
+ * all the module-level clients. Only the signatures of selected functions are followed. The selected declarations
+ * are sent along with the imports of their documents, with comments and indentation removed.
+ *
+ * @since 0.4.3
+ */
+class SourceContextSelector {
+
+    private final Module module;
+    private final SemanticModel semanticModel;
+    private final Map<String, Document> documentsByName = new HashMap<>();
+    private final Map<String, TreeMap<Integer, ModuleMemberDeclarationNode>> selectedMembers = new HashMap<>();
+    private final Deque<PendingMember> pendingMembers = new ArrayDeque<>();
+
+    private SourceContextSelector(Module module, SemanticModel semanticModel) {
+        this.module = module;
+        this.semanticModel = semanticModel;
+        for (DocumentId documentId : module.documentIds()) {
+            Document document = module.document(documentId);
+            this.documentsByName.put(document.name(), document);
+        }
+    }
+
+    /**
+     * Selects the source files to send when generating code for a function.
+     *
+     * @param module             module the function belongs to
+     * @param semanticModel      semantic model of the module
+     * @param document           document in which the function is defined
+     * @param functionDefinition function to generate code for
+     * @param promptWords        words of the prompt specified for the function
+     * @return the selected source files, or empty if the context could not be selected, in which case the full
+     * module should be used
+     */
+    static Optional<JsonArray> selectSourceFiles(Module module, SemanticModel semanticModel, Document document,
+                                                 FunctionDefinitionNode functionDefinition,
+                                                 Set<String> promptWords) {
+        try {
+            return Optional.of(new SourceContextSelector(module, semanticModel)
+                    .select(document, functionDefinition, promptWords));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private JsonArray select(Document document, FunctionDefinitionNode functionDefinition,
+                             Set<String> promptWords) {
+        if (this.module.documentIds().contains(document.documentId())) {
+            selectMember(document, functionDefinition);
+        }
+        visitReferences(document, functionDefinition.functionSignature());
+
+        for (Symbol symbol : this.semanticModel.moduleSymbols()) {
+            Optional<String> name = symbol.getName();
+            if (name.isPresent() && promptWords.contains(name.get())) {
+                selectDeclaration(symbol);
+            }
+        }
+
+        for (Document moduleDocument : this.documentsByName.values()) {
+            ModulePartNode modulePartNode = moduleDocument.syntaxTree().rootNode();
+            for (ModuleMemberDeclarationNode member : modulePartNode.members()) {
+                if (member instanceof ModuleVariableDeclarationNode variableDeclaration &&
+                        isClientDeclaration(variableDeclaration)) {
+                    selectMember(moduleDocument, member);
+                }
+            }
+        }
+
+        while (!this.pendingMembers.isEmpty()) {
+            PendingMember pendingMember = this.pendingMembers.poll();
+            ModuleMemberDeclarationNode member = pendingMember.member();
+            // The generated code can only call functions, their bodies are irrelevant.
+            visitReferences(pendingMember.document(), member instanceof FunctionDefinitionNode function ?
+                    function.functionSignature() : member);
+        }
+        return getSelectedSourceFiles();
+    }
+
+    private void visitReferences(Document document, Node node) {
+        node.accept(new NodeVisitor() {
+            @Override
+            public void visit(SimpleNameReferenceNode simpleNameReferenceNode) {
+                semanticModel.symbol(document, simpleNameReferenceNode.lineRange().startLine())
+                        .ifPresent(SourceContextSelector.this::selectDeclaration);
+            }
+        });
+    }
+
+    private void selectDeclaration(Symbol symbol) {
+        Optional<Location> location = symbol.getLocation();
+        if (!isModuleSymbol(symbol) || location.isEmpty()) {
+            return;
+        }
+
+        Document document = this.documentsByName.get(location.get().lineRange().fileName());
+        if (document == null) {
+            // Defined in a test document, or generated.
+            return;
+        }
+
+        int offset = location.get().textRange().startOffset();
+        ModulePartNode modulePartNode = document.syntaxTree().rootNode();
+        for (ModuleMemberDeclarationNode member : modulePartNode.members()) {
+            if (member.textRangeWithMinutiae().startOffset() <= offset &&
+                    offset < member.textRangeWithMinutiae().endOffset()) {
+                selectMember(document, member);
+                return;
+            }
+        }
+    }
+
+    private void selectMember(Document document, ModuleMemberDeclarationNode member) {
+        TreeMap<Integer, ModuleMemberDeclarationNode> members =
+                this.selectedMembers.computeIfAbsent(document.name(), name -> new TreeMap<>());
+        if (members.putIfAbsent(member.textRange().startOffset(), member) == null) {
+            this.pendingMembers.add(new PendingMember(document, member));
+        }
+    }
+
+    private boolean isModuleSymbol(Symbol symbol) {
+        Optional<ModuleSymbol> moduleSymbol = symbol.getModule();
+        if (moduleSymbol.isEmpty()) {
+            return false;
+        }
+
+        ModuleID moduleId = moduleSymbol.get().id();
+        return moduleId.orgName().equals(this.module.descriptor().org().value()) &&
+                moduleId.moduleName().equals(this.module.descriptor().name().toString());
+    }
+
+    private boolean isClientDeclaration(ModuleVariableDeclarationNode variableDeclaration) {
+        Optional<Symbol> symbol =
+                this.semanticModel.symbol(variableDeclaration.typedBindingPattern().bindingPattern());
+        if (symbol.isEmpty() || !(symbol.get() instanceof VariableSymbol variableSymbol)) {
+            return false;
+        }
+
+        TypeSymbol typeSymbol = variableSymbol.typeDescriptor();
+        if (typeSymbol instanceof TypeReferenceTypeSymbol typeReferenceTypeSymbol) {
+            typeSymbol = typeReferenceTypeSymbol.typeDescriptor();
+        }
+        return typeSymbol instanceof ObjectTypeSymbol objectTypeSymbol &&
+                objectTypeSymbol.qualifiers().contains(Qualifier.CLIENT);
+    }
+
+    private JsonArray getSelectedSourceFiles() {
+        JsonArray sourceFiles = new JsonArray();
+        for (DocumentId documentId : this.module.documentIds()) {
+            Document document = this.module.document(documentId);
+            TreeMap<Integer, ModuleMemberDeclarationNode> members = this.selectedMembers.get(document.name());
+            if (members == null) {
+                continue;
+            }
+
+            CompactSourceWriter writer = new CompactSourceWriter();
+            ModulePartNode modulePartNode = document.syntaxTree().rootNode();
+            for (ImportDeclarationNode importDeclaration : modulePartNode.imports()) {
+                writer.write(importDeclaration);
+            }
+            for (ModuleMemberDeclarationNode member : members.values()) {
+                writer.write(member);
+            }
+
+            JsonObject sourceFile = new JsonObject();
+            sourceFile.addProperty(FILE_PATH, document.name());
+            sourceFile.addProperty(CONTENT, writer.toString());
+            sourceFiles.add(sourceFile);
+        }
+        return sourceFiles;
+    }
+
+    private record PendingMember(Document document, ModuleMemberDeclarationNode member) { }
+
+    /**
+     * Writes the tokens of nodes, replacing comments and whitespace between tokens with at most a single space or
+     * line break.
+     */
+    static final class CompactSourceWriter {
+
+        private final StringBuilder source = new StringBuilder();
+        private Separator pendingSeparator = Separator.NONE;
+
+        void write(Node node) {
+            writeNode(node);
+            // Each top-level declaration starts on a new line.
+            this.pendingSeparator = Separator.NEW_LINE;
+        }
+
+        private void writeNode(Node node) {
+            if (node instanceof Token token) {
+                writeToken(token);
+                return;
+            }
+
+            if (node instanceof NonTerminalNode nonTerminalNode) {
+                for (Node child : nonTerminalNode.children()) {
+                    writeNode(child);
+                }
+            }
+        }
+
+        private void writeToken(Token token) {
+            if (token.isMissing()) {
+                return;
+            }
+
+            Separator separator = max(this.pendingSeparator, getSeparator(token.leadingMinutiae()));
+            if (!this.source.isEmpty()) {
+                this.source.append(separator.text);
+            }
+            this.source.append(token.text());
+            this.pendingSeparator = getSeparator(token.trailingMinutiae());
+        }
+
+        private static Separator getSeparator(MinutiaeList minutiaeList) {
+            Separator separator = Separator.NONE;
+            for (Minutiae minutiae : minutiaeList) {
+                separator = max(separator, switch (minutiae.kind()) {
+                    case END_OF_LINE_MINUTIAE -> Separator.NEW_LINE;
+                    default -> Separator.SPACE;
+                });
+            }
+            return separator;
+        }
+
+        private static Separator max(Separator first, Separator second) {
+            return first.compareTo(second) >= 0 ? first : second;
+        }
+
+        @Override
+        public String toString() {
+            return this.source.toString();
+        }
+
+        private enum Separator {
+            NONE(""),
+            SPACE(" "),
+            NEW_LINE("\n");
+
+            private final String text;
+
+            Separator(String text) {
+                this.text = text;
+            }
+        }
+    }
+}
@@ -18,12 +18,11 @@
 
 package io.ballerina.lib.ai.np.compilerplugin;
 
-import io.ballerina.openapi.service.mapper.type.TypeMapperImpl;
 import io.ballerina.projects.plugins.AnalysisTask;
 import io.ballerina.projects.plugins.SyntaxNodeAnalysisContext;
 
 /**
- * Initializes the type mapper required for generating a JSON schema of type.
+ * Records the context the type mapper required for generating a JSON schema of a type is created with.
  *
  * @since 0.3.0
  */
@@ -36,6 +35,6 @@ public class TypeMapperImplInitializer implements AnalysisTask<SyntaxNodeAnalysi
 
     @Override
     public void perform(SyntaxNodeAnalysisContext ctx) {
-        this.analysisData.typeMapper = new TypeMapperImpl(ctx);
+        this.analysisData.setTypeMapperContext(ctx);
     }
 }
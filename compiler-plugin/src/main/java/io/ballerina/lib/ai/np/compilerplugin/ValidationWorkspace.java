@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.ballerina.compiler.syntax.tree.ModulePartNode;
+import io.ballerina.compiler.syntax.tree.NodeParser;
+import io.ballerina.projects.Document;
+import io.ballerina.projects.DocumentConfig;
+import io.ballerina.projects.DocumentId;
+import io.ballerina.projects.Module;
+import io.ballerina.projects.ModuleId;
+import io.ballerina.projects.Package;
+import io.ballerina.projects.PackageCompilation;
+import io.ballerina.projects.Project;
+import io.ballerina.tools.diagnostics.Diagnostic;
+import io.ballerina.tools.diagnostics.DiagnosticSeverity;
+import io.ballerina.tools.text.LineRange;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * An in-memory copy of the package being compiled, used to validate generated code.
+ * <p>
+ * Generated code is added to, or replaced in, the copy as a document of the module the code is generated for, and
+ * is retained for subsequent validations. Validations requested while a compilation is in progress are batched
+ * and validated together in the next compilation.
+ *
+ * @since 0.4.3
+ */
+class ValidationWorkspace {
+
+    private static final String MESSAGE = "message";
+    private static final String GENERATED_DIRECTORY = "generated";
+    private static final String MODULES_DIRECTORY = "modules";
+
+    private final String packageOrgName;
+    private final Lock compilationLock = new ReentrantLock();
+    // Guarded by itself.
+    private final Map<GeneratedDocument, PendingDocument> pendingDocuments = new LinkedHashMap<>();
+    // Guarded by the compilation lock.
+    private final Map<GeneratedDocument, DocumentId> generatedDocumentIds = new HashMap<>();
+    private Package currentPackage;
+
+    ValidationWorkspace(Project project, Predicate<Document> excludedDocuments, String packageOrgName) {
+        this.packageOrgName = packageOrgName;
+        Package duplicatePackage = project.duplicate().currentPackage();
+        for (ModuleId moduleId : duplicatePackage.moduleIds()) {
+            Module module = duplicatePackage.module(moduleId);
+            Module.Modifier moduleModifier = module.modify();
+            for (DocumentId documentId : module.documentIds()) {
+                if (excludedDocuments.test(module.document(documentId))) {
+                    moduleModifier = moduleModifier.removeDocument(documentId);
+                }
+            }
+            duplicatePackage = moduleModifier.apply().packageInstance();
+        }
+        this.currentPackage = duplicatePackage;
+    }
+
+    /**
+     * Adds or replaces a generated document, without validating it.
+     *
+     * @param moduleId     module the code is generated for
+     * @param documentName name of the generated document
+     * @param code         generated code
+     */
+    void update(ModuleId moduleId, String documentName, String code) {
+        enqueue(new PendingDocument(moduleId, documentName, code, null));
+    }
+
+    /**
+     * Adds or replaces a generated document, and validates it.
+     *
+     * @param moduleId     module the code is generated for
+     * @param documentName name of the generated document
+     * @param code         generated code
+     * @return errors reported for the generated document
+     */
+    JsonArray validate(ModuleId moduleId, String documentName, String code) {
+        PendingDocument pendingDocument =
+                new PendingDocument(moduleId, documentName, code, new CompletableFuture<>());
+        enqueue(pendingDocument);
+
+        this.compilationLock.lock();
+        try {
+            // The document may have been validated with a batch compiled while waiting for the lock.
+            if (!pendingDocument.diagnostics().isDone()) {
+                validatePendingDocuments();
+            }
+        } finally {
+            this.compilationLock.unlock();
+        }
+
+        try {
+            return pendingDocument.diagnostics().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void enqueue(PendingDocument pendingDocument) {
+        synchronized (this.pendingDocuments) {
+            PendingDocument replacedDocument =
+                    this.pendingDocuments.put(pendingDocument.generatedDocument(), pendingDocument);
+            if (replacedDocument != null && replacedDocument.diagnostics() != null) {
+                // Only the latest code of a document is validated.
+                replacedDocument.diagnostics().complete(new JsonArray());
+            }
+        }
+    }
+
+    private void validatePendingDocuments() {
+        List<PendingDocument> documents;
+        synchronized (this.pendingDocuments) {
+            documents = new ArrayList<>(this.pendingDocuments.values());
+            this.pendingDocuments.clear();
+        }
+
+        try {
+            for (PendingDocument document : documents) {
+                applyDocument(document);
+            }
+
+            PackageCompilation compilation = this.currentPackage.getCompilation();
+            List<Diagnostic> errors = getErrors(compilation);
+            for (PendingDocument document : documents) {
+                if (document.diagnostics() != null) {
+                    document.diagnostics().complete(getDiagnostics(document, compilation, errors));
+                }
+            }
+        } catch (RuntimeException e) {
+            for (PendingDocument document : documents) {
+                if (document.diagnostics() != null) {
+                    document.diagnostics().completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void applyDocument(PendingDocument document) {
+        Module module = this.currentPackage.module(document.moduleId());
+        DocumentId documentId = this.generatedDocumentIds.get(document.generatedDocument());
+        if (documentId == null) {
+            documentId = DocumentId.create(document.documentName(), document.moduleId());
+            this.generatedDocumentIds.put(document.generatedDocument(), documentId);
+            this.currentPackage = module.modify()
+                    .addDocument(DocumentConfig.from(documentId, document.code(), document.documentName()))
+                    .apply().packageInstance();
+            return;
+        }
+
+        this.currentPackage = module.document(documentId).modify()
+                .withContent(document.code())
+                .apply().module().packageInstance();
+    }
+
+    private JsonArray getDiagnostics(PendingDocument document, PackageCompilation compilation,
+                                     List<Diagnostic> errors) {
+        JsonArray diagnostics = new JsonArray();
+        Set<String> errorsWithoutDocument = null;
+        for (Diagnostic error : errors) {
+            if (isInDocument(error, document.generatedDocument())) {
+                diagnostics.add(createDiagnostic(getDiagnosticMessage(error, document.documentName())));
+                continue;
+            }
+
+            // Errors in other generated documents are reported for the code generated for those documents.
+            if (isInGeneratedDocument(error)) {
+                continue;
+            }
+
+            // Errors elsewhere, such as a redeclared symbol at a declaration of the package, are reported only if
+            // they go away without this document.
+            if (errorsWithoutDocument == null) {
+                errorsWithoutDocument = getErrorsWithoutDocument(document.generatedDocument());
+            }
+            if (!errorsWithoutDocument.contains(error.toString())) {
+                diagnostics.add(createDiagnostic(error.toString()));
+            }
+        }
+
+        Document generatedDocument = this.currentPackage.module(document.moduleId())
+                .document(this.generatedDocumentIds.get(document.generatedDocument()));
+        ModulePartNode modulePartNode = NodeParser.parseModulePart(document.code());
+        diagnostics.addAll(new AllowedConstructValidator(compilation.getSemanticModel(document.moduleId()),
+                Optional.of(generatedDocument), this.packageOrgName).checkCodeGenerationDiagnostics(modulePartNode));
+        return diagnostics;
+    }
+
+    private Set<String> getErrorsWithoutDocument(GeneratedDocument document) {
+        Package packageWithoutDocument = this.currentPackage.module(document.moduleId()).modify()
+                .removeDocument(this.generatedDocumentIds.get(document))
+                .apply().packageInstance();
+        return getErrors(packageWithoutDocument.getCompilation()).stream()
+                .map(Diagnostic::toString)
+                .collect(Collectors.toSet());
+    }
+
+    private static List<Diagnostic> getErrors(PackageCompilation compilation) {
+        return compilation.diagnosticResult().diagnostics().stream()
+                .filter(diagnostic -> diagnostic.diagnosticInfo().severity() == DiagnosticSeverity.ERROR)
+                .toList();
+    }
+
+    private static JsonObject createDiagnostic(String message) {
+        JsonObject diagnostic = new JsonObject();
+        diagnostic.addProperty(MESSAGE, message);
+        return diagnostic;
+    }
+
+    private boolean isInGeneratedDocument(Diagnostic diagnostic) {
+        for (GeneratedDocument generatedDocument : this.generatedDocumentIds.keySet()) {
+            if (isInDocument(diagnostic, generatedDocument)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInDocument(Diagnostic diagnostic, GeneratedDocument document) {
+        // Documents of the default module are reported by their names, and documents of other modules relative to
+        // the package root, so the same document name may be reported for more than one module.
+        Path path = Paths.get(diagnostic.location().lineRange().fileName());
+        Path fileName = path.getFileName();
+        if (fileName == null || !document.documentName().equals(fileName.toString())) {
+            return false;
+        }
+
+        int nameCount = path.getNameCount();
+        boolean inNonDefaultModule =
+                nameCount >= 3 && MODULES_DIRECTORY.equals(path.getName(nameCount - 3).toString());
+        Module module = this.currentPackage.module(document.moduleId());
+        if (module.isDefaultModule()) {
+            return !inNonDefaultModule;
+        }
+        return inNonDefaultModule &&
+                module.moduleName().moduleNamePart().equals(path.getName(nameCount - 2).toString());
+    }
+
+    private static String getDiagnosticMessage(Diagnostic diagnostic, String documentName) {
+        // Reported relative to the package root, as if the generated document was in the generated directory.
+        LineRange lineRange = diagnostic.location().lineRange();
+        return String.format("%s [%s:(%d:%d,%d:%d)] %s", diagnostic.diagnosticInfo().severity(),
+                Paths.get(GENERATED_DIRECTORY, documentName), lineRange.startLine().line() + 1,
+                lineRange.startLine().offset() + 1, lineRange.endLine().line() + 1,
+                lineRange.endLine().offset() + 1, diagnostic.message());
+    }
+
+    private record PendingDocument(ModuleId moduleId, String documentName, String code,
+                                   CompletableFuture<JsonArray> diagnostics) {
+
+        GeneratedDocument generatedDocument() {
+            return new GeneratedDocument(this.moduleId, this.documentName);
+        }
+    }
+
+    // Generated documents are named after the functions they are generated for, so the same name may be used in
+    // more than one module.
+    private record GeneratedDocument(ModuleId moduleId, String documentName) { }
+}
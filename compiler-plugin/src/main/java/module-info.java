@@ -18,6 +18,7 @@
 
 module io.ballerina.lib.ai.np.compilerplugin {
     requires java.net.http;
+    requires jdk.jfr;
     requires com.google.gson;
     requires io.ballerina.formatter.core;
     requires io.ballerina.lang;
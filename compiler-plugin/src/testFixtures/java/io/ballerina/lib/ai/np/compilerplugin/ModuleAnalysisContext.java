@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (https://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.ballerina.lib.ai.np.compilerplugin;
+
+import io.ballerina.compiler.api.SemanticModel;
+import io.ballerina.compiler.syntax.tree.Node;
+import io.ballerina.compiler.syntax.tree.SyntaxTree;
+import io.ballerina.projects.Document;
+import io.ballerina.projects.DocumentId;
+import io.ballerina.projects.ModuleId;
+import io.ballerina.projects.Package;
+import io.ballerina.projects.PackageCompilation;
+import io.ballerina.projects.plugins.SyntaxNodeAnalysisContext;
+import io.ballerina.tools.diagnostics.Diagnostic;
+
+/**
+ * The analysis context of the root node of a document, with which the type mapper is created outside a
+ * compilation, as {@link TypeMapperImplInitializer} does within one.
+ *
+ * @since 0.4.3
+ */
+final class ModuleAnalysisContext implements SyntaxNodeAnalysisContext {
+
+    private final PackageCompilation compilation;
+    private final Document document;
+
+    ModuleAnalysisContext(PackageCompilation compilation, Document document) {
+        this.compilation = compilation;
+        this.document = document;
+    }
+
+    @Override
+    public Node node() {
+        return this.document.syntaxTree().rootNode();
+    }
+
+    @Override
+    public ModuleId moduleId() {
+        return this.document.documentId().moduleId();
+    }
+
+    @Override
+    public DocumentId documentId() {
+        return this.document.documentId();
+    }
+
+    @Override
+    public SyntaxTree syntaxTree() {
+        return this.document.syntaxTree();
+    }
+
+    @Override
+    public SemanticModel semanticModel() {
+        return this.compilation.getSemanticModel(moduleId());
+    }
+
+    @Override
+    public Package currentPackage() {
+        return this.document.module().packageInstance();
+    }
+
+    @Override
+    public PackageCompilation compilation() {
+        return this.compilation;
+    }
+
+    @Override
+    public void reportDiagnostic(Diagnostic diagnostic) {
+        throw new RuntimeException("Unexpected diagnostic: " + diagnostic);
+    }
+}